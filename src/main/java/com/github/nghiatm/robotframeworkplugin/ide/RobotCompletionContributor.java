@@ -1,16 +1,12 @@
 package com.github.nghiatm.robotframeworkplugin.ide;
 
-import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
 import com.github.nghiatm.robotframeworkplugin.psi.RecommendationWord;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotElementType;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
-import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
-import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
-import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
 import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
-import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
 import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
+import com.github.nghiatm.robotframeworkplugin.psi.index.RobotKeywordStatistics;
 import com.intellij.codeInsight.TailType;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
@@ -18,6 +14,8 @@ import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.codeInsight.lookup.TailTypeDecorator;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -27,6 +25,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.intellij.patterns.PlatformPatterns.psiElement;
 
@@ -35,8 +36,9 @@ import static com.intellij.patterns.PlatformPatterns.psiElement;
  */
 public class RobotCompletionContributor extends CompletionContributor {
 
+    private static final int FIRST_KEYWORDS = 50;
     private static final TailType NEW_LINE = TailType.createSimpleTailType('\n');
-    private static final TailType SUPER_SPACE = new TailType() {
+    static final TailType SUPER_SPACE = new TailType() {
         @Override
         public int processTail(Editor editor, int tailOffset) {
             Document document = editor.getDocument();
@@ -199,77 +201,40 @@ public class RobotCompletionContributor extends CompletionContributor {
         if (!(file instanceof RobotFile)) {
             return;
         }
-        RobotFile robotFile = (RobotFile) file;
-
-        boolean capitalize = RobotOptionsProvider.getInstance(robotFile.getProject()).capitalizeKeywords();
-        addKeywordsToResult(robotFile.getDefinedKeywords(), result, capitalize);
-
-        boolean includeTransitive = RobotOptionsProvider.getInstance(file.getProject()).allowTransitiveImports();
-        Collection<KeywordFile> importedFiles = robotFile.getImportedFiles(includeTransitive);
-        for (KeywordFile f : importedFiles) {
-            if (f.getImportType() != ImportType.VARIABLES) {
-                addKeywordsToResult(f.getDefinedKeywords(), result, capitalize);
-            }
-        }
+        String prefix = result.getPrefixMatcher().getPrefix();
+        RobotCompletionModel model = RobotCompletionModel.getInstance((RobotFile) file);
+        // keywords of the file and its resources are at hand; libraries follow one by one as they load
+        addRankedKeywords(result, model.getKeywords(prefix), file.getProject());
+        model.processLibraryKeywords(prefix, keywords -> {
+            result.addAllElements(keywords);
+            return !result.isStopped();
+        });
     }
 
-    private static void addRobotVariables(@NotNull CompletionResultSet result, @NotNull PsiFile file, @Nullable PsiElement position) {
-        if (!(file instanceof RobotFile)) {
+    private static void addRankedKeywords(@NotNull CompletionResultSet result, @NotNull List<LookupElement> keywords,
+                                          @NotNull Project project) {
+        if (keywords.size() <= FIRST_KEYWORDS) {
+            result.addAllElements(keywords);
             return;
         }
-        RobotFile robotFile = (RobotFile) file;
-        addVariablesToResult(robotFile.getDefinedVariables(), result, position);
-
-        boolean includeTransitive = RobotOptionsProvider.getInstance(file.getProject()).allowTransitiveImports();
-        Collection<KeywordFile> importedFiles = robotFile.getImportedFiles(includeTransitive);
-        for (KeywordFile f : importedFiles) {
-            if (f.getImportType() == ImportType.VARIABLES) {
-                addVariablesToResult(f.getDefinedVariables(), result, position);
-            }
+        // the most used keywords are shown right away, the rest follow
+        Map<LookupElement, Integer> counts = new HashMap<LookupElement, Integer>();
+        for (LookupElement keyword : keywords) {
+            String name = keyword.getUserData(RobotCompletionModel.KEYWORD);
+            counts.put(keyword, name == null ? 0 : RobotKeywordStatistics.getUsageCount(name, project));
         }
+        keywords.sort((a, b) -> Integer.compare(counts.get(b), counts.get(a)));
+        result.addAllElements(keywords.subList(0, FIRST_KEYWORDS));
+        ProgressManager.checkCanceled();
+        result.addAllElements(keywords.subList(FIRST_KEYWORDS, keywords.size()));
     }
 
-    private static void addVariablesToResult(@NotNull final Collection<DefinedVariable> variables,
-                                             @NotNull final CompletionResultSet result,
-                                             @Nullable PsiElement position) {
-        for (DefinedVariable variable : variables) {
-            if (!variable.isInScope(position)) {
-                continue;
-            }
-            String text = variable.getLookup();
-            if (text != null) {
-                // we only want the first word of the variable
-                String[] words = text.split("\\s+");
-                String lookupString = words.length > 0 ? words[0] : text;
-                String[] lookupStrings = {text, WordUtils.capitalize(text),
-                        text.toLowerCase(),
-                        lookupString, lookupString.toLowerCase()};
-                LookupElement element = TailTypeDecorator.withTail(
-                        LookupElementBuilder.create(lookupString)
-                                .withLookupStrings(Arrays.asList(lookupStrings))
-                                .withPresentableText(lookupString)
-                                .withCaseSensitivity(true),
-                        TailType.NONE);
-                result.addElement(element);
-            }
-        }
-    }
-
-    private static void addKeywordsToResult(final Collection<DefinedKeyword> keywords,
-                                            final CompletionResultSet result,
-                                            boolean capitalize) {
-        for (DefinedKeyword keyword : keywords) {
-            String text = keyword.getKeywordName();
-            String lookupString = capitalize ? WordUtils.capitalize(text) : text;
-            String[] lookupStrings = {text, WordUtils.capitalize(text), text.toLowerCase()};
-            LookupElement element = TailTypeDecorator.withTail(
-                    LookupElementBuilder.create(lookupString)
-                            .withLookupStrings(Arrays.asList(lookupStrings))
-                            .withPresentableText(lookupString)
-                            .withCaseSensitivity(true),
-                    keyword.hasArguments() ? SUPER_SPACE : TailType.NONE);
-            result.addElement(element);
+    private static void addRobotVariables(@NotNull CompletionResultSet result, @NotNull PsiFile file, @Nullable PsiElement position) {
+        if (!(file instanceof RobotFile)) {
+            return;
         }
+        String prefix = result.getPrefixMatcher().getPrefix();
+        result.addAllElements(RobotCompletionModel.getInstance((RobotFile) file).getVariables(prefix, position));
     }
 
     private static void addSyntaxLookup(@NotNull RobotElementType type, @NotNull CompletionResultSet results, @NotNull TailType tail) {
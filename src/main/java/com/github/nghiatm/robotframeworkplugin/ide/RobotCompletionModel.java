@@ -0,0 +1,330 @@
+package com.github.nghiatm.robotframeworkplugin.ide;
+
+import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
+import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotKeywordMatcher;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableMatcher;
+import com.intellij.codeInsight.TailType;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.codeInsight.lookup.TailTypeDecorator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import org.apache.commons.lang.WordUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The completion items for the keywords and variables visible in a robot file.
+ * <p>
+ * Items are built once per keyword or variable matcher, that is once per version of the file or library that
+ * defines them, and shared by every file importing it; a changed import only builds the items of the newly
+ * imported file. The items of a matcher are sorted by the start of every word of their names, so completion
+ * only hands over those with a word starting like the typed prefix and leaves the final match to the prefix
+ * matcher.
+ * <p>
+ * Only the immutable parts of the items are shared; lookup elements carry data of the completion session they
+ * are shown in, so they are created per session and only for the items handed over.
+ */
+class RobotCompletionModel {
+
+    /**
+     * The name of the keyword a completion item inserts.
+     */
+    static final Key<String> KEYWORD = Key.create("robot.completion.keyword");
+
+    private static final Key<CachedValue<RobotCompletionModel>> MODEL = Key.create("robot.completion.model");
+
+    private static final Map<RobotKeywordMatcher, Part> KEYWORD_PARTS = ContainerUtil.createConcurrentWeakMap();
+    private static final Map<RobotVariableMatcher, Part> VARIABLE_PARTS = ContainerUtil.createConcurrentWeakMap();
+
+    private final RobotFile file;
+    private final List<KeywordFile> resources = new ArrayList<KeywordFile>();
+    private final List<KeywordFile> libraries = new ArrayList<KeywordFile>();
+    private final List<KeywordFile> variableFiles = new ArrayList<KeywordFile>();
+    private final boolean capitalize;
+    private final boolean transitive;
+
+    private RobotCompletionModel(@NotNull RobotFile file) {
+        this.file = file;
+        RobotOptionsProvider options = RobotOptionsProvider.getInstance(file.getProject());
+        this.capitalize = options.capitalizeKeywords();
+        this.transitive = options.allowTransitiveImports();
+        // only the imports are resolved here; the keywords of libraries are loaded when completion asks for them
+        for (KeywordFile imported : file.getImportedFiles(this.transitive)) {
+            if (imported.getImportType() == ImportType.VARIABLES) {
+                this.variableFiles.add(imported);
+            } else if (imported instanceof RobotFile) {
+                this.resources.add(imported);
+            } else {
+                this.libraries.add(imported);
+            }
+        }
+    }
+
+    /**
+     * The visible files depend on the imports of other files as well, so the model is rebuilt when any PSI
+     * changes; the items of unchanged files are reused.
+     *
+     * @param file the file completion runs in.
+     * @return the completion model of the file.
+     */
+    @NotNull
+    static RobotCompletionModel getInstance(@NotNull RobotFile file) {
+        RobotCompletionModel model = CachedValuesManager.getCachedValue(file, MODEL, () ->
+                CachedValueProvider.Result.create(new RobotCompletionModel(file), PsiModificationTracker.MODIFICATION_COUNT));
+        if (model.transitive != RobotOptionsProvider.getInstance(file.getProject()).allowTransitiveImports()) {
+            // the option changed since; the cached model is replaced with the next change
+            model = new RobotCompletionModel(file);
+        }
+        return model;
+    }
+
+    /**
+     * @param prefix the typed prefix.
+     * @return the items of the keywords of the file and its resources with a word starting like the prefix.
+     */
+    @NotNull
+    List<LookupElement> getKeywords(@NotNull String prefix) {
+        List<LookupElement> results = new ArrayList<LookupElement>();
+        getKeywordPart(this.file.getKeywordMatcher()).find(prefix, null, results);
+        for (KeywordFile resource : this.resources) {
+            getKeywordPart(resource.getKeywordMatcher()).find(prefix, null, results);
+        }
+        return results;
+    }
+
+    /**
+     * Hands over the keyword items of one library at a time, as loading the keywords of a python library may
+     * take a while. Stops as soon as completion is cancelled.
+     *
+     * @param prefix    the typed prefix.
+     * @param processor receives the items of each library with a word starting like the prefix; returns false
+     *                  to stop.
+     */
+    void processLibraryKeywords(@NotNull String prefix, @NotNull Processor<List<LookupElement>> processor) {
+        for (KeywordFile library : this.libraries) {
+            ProgressManager.checkCanceled();
+            List<LookupElement> results = new ArrayList<LookupElement>();
+            getKeywordPart(library.getKeywordMatcher()).find(prefix, null, results);
+            if (!results.isEmpty() && !processor.process(results)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param prefix   the typed prefix.
+     * @param position the element completion runs at; variables not in scope there are left out.
+     * @return the variable items with a word starting like the prefix.
+     */
+    @NotNull
+    List<LookupElement> getVariables(@NotNull String prefix, @Nullable PsiElement position) {
+        List<LookupElement> results = new ArrayList<LookupElement>();
+        getVariablePart(this.file.getVariableMatcher()).find(prefix, position, results);
+        for (KeywordFile variables : this.variableFiles) {
+            getVariablePart(variables.getVariableMatcher()).find(prefix, position, results);
+        }
+        return results;
+    }
+
+    @NotNull
+    private Part getKeywordPart(@NotNull RobotKeywordMatcher matcher) {
+        Part part = KEYWORD_PARTS.get(matcher);
+        if (part == null || part.capitalize != this.capitalize) {
+            part = createKeywordPart(matcher.getKeywords(), this.capitalize);
+            KEYWORD_PARTS.put(matcher, part);
+        }
+        return part;
+    }
+
+    @NotNull
+    private static Part getVariablePart(@NotNull RobotVariableMatcher matcher) {
+        Part part = VARIABLE_PARTS.get(matcher);
+        if (part == null) {
+            part = createVariablePart(matcher.getVariables());
+            VARIABLE_PARTS.put(matcher, part);
+        }
+        return part;
+    }
+
+    @NotNull
+    private static Part createKeywordPart(@NotNull Collection<DefinedKeyword> keywords, boolean capitalize) {
+        PartBuilder builder = new PartBuilder();
+        for (DefinedKeyword keyword : keywords) {
+            String text = keyword.getKeywordName();
+            if (text == null) {
+                continue;
+            }
+            String lookupString = capitalize ? WordUtils.capitalize(text) : text;
+            String[] lookupStrings = {text, WordUtils.capitalize(text), text.toLowerCase()};
+            builder.add(text, new Item(lookupString, lookupStrings,
+                    keyword.hasArguments() ? RobotCompletionContributor.SUPER_SPACE : TailType.NONE, text, null));
+        }
+        return builder.build(capitalize);
+    }
+
+    @NotNull
+    private static Part createVariablePart(@NotNull Collection<DefinedVariable> variables) {
+        PartBuilder builder = new PartBuilder();
+        for (DefinedVariable variable : variables) {
+            String text = variable.getLookup();
+            if (text == null) {
+                continue;
+            }
+            // we only want the first word of the variable
+            String[] words = text.split("\\s+");
+            String lookupString = words.length > 0 ? words[0] : text;
+            String[] lookupStrings = {text, WordUtils.capitalize(text),
+                    text.toLowerCase(),
+                    lookupString, lookupString.toLowerCase()};
+            builder.add(text, new Item(lookupString, lookupStrings, TailType.NONE, null, variable));
+        }
+        return builder.build(false);
+    }
+
+    /**
+     * @return the lower case first letter or digit of the text; 0 if there is none.
+     */
+    private static char getFirstLetter(@NotNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                return Character.toLowerCase(c);
+            }
+        }
+        return 0;
+    }
+
+    private static class PartBuilder {
+
+        private final List<Item> items = new ArrayList<Item>();
+        private final List<long[]> words = new ArrayList<long[]>();
+
+        private void add(@NotNull String text, @NotNull Item item) {
+            int index = this.items.size();
+            this.items.add(item);
+            char previous = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                // words start after spaces, underscores, dots and sigils, and at each camel hump
+                if (Character.isLetterOrDigit(c) && (!Character.isLetterOrDigit(previous) ||
+                        Character.isUpperCase(c) && Character.isLowerCase(previous))) {
+                    this.words.add(new long[]{Character.toLowerCase(c), index});
+                }
+                previous = c;
+            }
+        }
+
+        @NotNull
+        private Part build(boolean capitalize) {
+            this.words.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            char[] letters = new char[this.words.size()];
+            int[] indexes = new int[this.words.size()];
+            for (int i = 0; i < letters.length; i++) {
+                letters[i] = (char) this.words.get(i)[0];
+                indexes[i] = (int) this.words.get(i)[1];
+            }
+            return new Part(this.items.toArray(new Item[0]), letters, indexes, capitalize);
+        }
+    }
+
+    private static class Part {
+
+        private final Item[] items;
+        private final char[] letters;
+        private final int[] indexes;
+        private final boolean capitalize;
+
+        private Part(@NotNull Item[] items, @NotNull char[] letters, @NotNull int[] indexes, boolean capitalize) {
+            this.items = items;
+            this.letters = letters;
+            this.indexes = indexes;
+            this.capitalize = capitalize;
+        }
+
+        private void find(@NotNull String prefix, @Nullable PsiElement position, @NotNull List<LookupElement> results) {
+            char letter = getFirstLetter(prefix);
+            if (letter == 0) {
+                for (int i = 0; i < this.items.length; i++) {
+                    add(i, position, results);
+                }
+                return;
+            }
+            int start = Arrays.binarySearch(this.letters, letter);
+            if (start < 0) {
+                return;
+            }
+            while (start > 0 && this.letters[start - 1] == letter) {
+                start--;
+            }
+            int previous = -1;
+            for (int i = start; i < this.letters.length && this.letters[i] == letter; i++) {
+                // a name with several matching words is listed once
+                if (this.indexes[i] != previous) {
+                    add(this.indexes[i], position, results);
+                    previous = this.indexes[i];
+                }
+            }
+        }
+
+        private void add(int index, @Nullable PsiElement position, @NotNull List<LookupElement> results) {
+            Item item = this.items[index];
+            if (item.variable == null || item.variable.isInScope(position)) {
+                results.add(item.createElement());
+            }
+        }
+    }
+
+    /**
+     * What a completion item is made of; shared by all completion sessions.
+     */
+    private static class Item {
+
+        private final String lookupString;
+        private final String[] lookupStrings;
+        private final TailType tail;
+        private final String keyword;
+        private final DefinedVariable variable;
+
+        private Item(@NotNull String lookupString, @NotNull String[] lookupStrings, @NotNull TailType tail,
+                     @Nullable String keyword, @Nullable DefinedVariable variable) {
+            this.lookupString = lookupString;
+            this.lookupStrings = lookupStrings;
+            this.tail = tail;
+            this.keyword = keyword;
+            this.variable = variable;
+        }
+
+        @NotNull
+        private LookupElement createElement() {
+            LookupElement element = TailTypeDecorator.withTail(
+                    LookupElementBuilder.create(this.lookupString)
+                            .withLookupStrings(Arrays.asList(this.lookupStrings))
+                            .withPresentableText(this.lookupString)
+                            .withCaseSensitivity(true),
+                    this.tail);
+            if (this.keyword != null) {
+                element.putUserData(KEYWORD, this.keyword);
+            }
+            return element;
+        }
+    }
+}
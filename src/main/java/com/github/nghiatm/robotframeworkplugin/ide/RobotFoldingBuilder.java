@@ -1,9 +1,9 @@
 package com.github.nghiatm.robotframeworkplugin.ide;
 
-import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
 import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
 import com.github.nghiatm.robotframeworkplugin.psi.element.RobotStatement;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
 import com.intellij.lang.ASTNode;
 import com.intellij.lang.folding.FoldingBuilder;
 import com.intellij.lang.folding.FoldingDescriptor;
@@ -25,7 +25,7 @@ public class RobotFoldingBuilder implements FoldingBuilder, DumbAware {
 
     private static final String ELLIPSIS = "...";
 
-    private static final TokenSet BLOCKS_TO_FOLD = TokenSet.create(RobotTokenTypes.KEYWORD_DEFINITION, RobotTokenTypes.HEADING);
+    private static final TokenSet BLOCKS_TO_FOLD = TokenSet.create(RobotStubElementTypes.KEYWORD_DEFINITION, RobotStubElementTypes.HEADING);
 
     @NotNull
     public FoldingDescriptor[] buildFoldRegions(@NotNull ASTNode node, @NotNull Document document) {
@@ -0,0 +1,19 @@
+package com.github.nghiatm.robotframeworkplugin.ide;
+
+import com.github.nghiatm.robotframeworkplugin.psi.index.RobotKeywordStatistics;
+import com.intellij.codeInsight.completion.CompletionLocation;
+import com.intellij.codeInsight.completion.CompletionWeigher;
+import com.intellij.codeInsight.lookup.LookupElement;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Puts the keywords invoked most often in the project first.
+ */
+public class RobotKeywordUsageWeigher extends CompletionWeigher {
+
+    @Override
+    public Integer weigh(@NotNull LookupElement element, @NotNull CompletionLocation location) {
+        String keyword = element.getUserData(RobotCompletionModel.KEYWORD);
+        return keyword == null ? 0 : RobotKeywordStatistics.getUsageCount(keyword, location.getProject());
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.nghiatm.robotframeworkplugin.ide.config;
 
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
@@ -48,6 +49,7 @@ public class RobotOptionsProvider implements PersistentStateComponent<RobotOptio
     @Override
     public void loadState(State state) {
         this.state.debug = state.debug;
+        PerformanceCollector.setEnabled(state.debug);
         this.state.transitiveImports = state.transitiveImports;
         this.state.globalVariables = state.globalVariables;
         this.state.capitalizeKeywords = state.capitalizeKeywords;
@@ -76,6 +78,7 @@ public class RobotOptionsProvider implements PersistentStateComponent<RobotOptio
 
     public void setDebug(boolean debug) {
         this.state.debug = debug;
+        PerformanceCollector.setEnabled(debug);
     }
 
     public boolean allowTransitiveImports() {
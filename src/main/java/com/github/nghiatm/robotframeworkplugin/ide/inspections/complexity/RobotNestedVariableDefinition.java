@@ -4,7 +4,9 @@ import com.github.nghiatm.robotframeworkplugin.RobotBundle;
 import com.github.nghiatm.robotframeworkplugin.ide.inspections.SimpleRobotInspection;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
 import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 
@@ -24,7 +26,8 @@ public class RobotNestedVariableDefinition extends SimpleRobotInspection {
 
     @Override
     public boolean skip(PsiElement element) {
-        if (element.getNode().getElementType() != RobotTokenTypes.VARIABLE_DEFINITION) {
+        IElementType type = element.getNode().getElementType();
+        if (type != RobotTokenTypes.VARIABLE_DEFINITION && type != RobotStubElementTypes.VARIABLE_DEFINITION) {
             return true;
         }
         PsiElement parent = element.getParent();
@@ -0,0 +1,131 @@
+package com.github.nghiatm.robotframeworkplugin.ide.metrics;
+
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotImportCache;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotMetrics;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.JPanel;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Shows the latency percentiles collected by {@link PerformanceCollector} per context and per file, and how
+ * well the {@link RobotImportCache} of the project is doing.
+ */
+public class RobotMetricsToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    private static final String ALL_FILES = "<all>";
+    private static final String[] COLUMNS = {"Context", "File", "Count", "Total (ms)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"};
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JBTable table = new JBTable(model);
+        table.setAutoCreateRowSorter(true);
+        JBLabel importCache = new JBLabel();
+
+        DefaultActionGroup group = new DefaultActionGroup();
+        group.add(new DumbAwareAction("Refresh", "Show the latest metrics", AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                refresh(project, model, importCache);
+            }
+        });
+        group.add(new DumbAwareAction("Reset", "Clear all collected metrics", AllIcons.Actions.GC) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                RobotMetrics.reset();
+                refresh(project, model, importCache);
+            }
+        });
+        group.add(new DumbAwareAction("Export", "Export the metrics as JSON", AllIcons.ToolbarDecorator.Export) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                export(project);
+            }
+        });
+        ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("RobotMetrics", group, true);
+
+        SimpleToolWindowPanel panel = new SimpleToolWindowPanel(true, true);
+        panel.setToolbar(toolbar.getComponent());
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(new JBScrollPane(table), BorderLayout.CENTER);
+        content.add(importCache, BorderLayout.SOUTH);
+        panel.setContent(content);
+        toolbar.setTargetComponent(panel);
+        refresh(project, model, importCache);
+
+        toolWindow.getContentManager().addContent(ContentFactory.SERVICE.getInstance().createContent(panel, "", false));
+    }
+
+    private static void refresh(@NotNull Project project, @NotNull DefaultTableModel model, @NotNull JBLabel importCache) {
+        RobotImportCache cache = RobotImportCache.getInstance(project);
+        importCache.setText(String.format("Import cache: %d entries, %d hits, %d misses, %d evictions",
+                cache.getSize(), cache.getHits(), cache.getMisses(), cache.getEvictions()));
+        model.setRowCount(0);
+        for (RobotMetrics.Entry entry : RobotMetrics.getEntries()) {
+            model.addRow(new Object[]{
+                    entry.getContext(),
+                    entry.getFile() == null ? ALL_FILES : entry.getFile(),
+                    entry.getCount(),
+                    format(entry.getTotalMillis()),
+                    format(entry.getPercentileMillis(50)),
+                    format(entry.getPercentileMillis(95)),
+                    format(entry.getPercentileMillis(99)),
+                    format(entry.getMaxMillis())
+            });
+        }
+        if (!PerformanceCollector.isEnabled() && model.getRowCount() == 0) {
+            model.addRow(new Object[]{"Enable debug in the Robot Options to collect metrics", "", "", "", "", "", "", ""});
+        }
+    }
+
+    @NotNull
+    private static String format(double millis) {
+        return String.format("%.3f", millis);
+    }
+
+    private static void export(@NotNull Project project) {
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Robot Metrics", "Save the collected metrics as JSON", "json");
+        VirtualFileWrapper target = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, "robot-metrics.json");
+        if (target == null) {
+            return;
+        }
+        try {
+            Files.write(target.getFile().toPath(), RobotMetrics.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, e.getMessage(), "Export Robot Metrics");
+        }
+    }
+}
@@ -3,24 +3,31 @@ package com.github.nghiatm.robotframeworkplugin.ide.search;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Argument;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordInvokable;
 import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
 import com.github.nghiatm.robotframeworkplugin.psi.element.RobotStatement;
+import com.github.nghiatm.robotframeworkplugin.psi.index.RobotKeywordUsageIndex;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
 import com.intellij.openapi.application.QueryExecutorBase;
-import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.search.*;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.util.Processor;
+import com.jetbrains.python.psi.PyFunction;
 import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * @author mrubino
@@ -28,6 +35,8 @@ import java.util.HashSet;
  */
 public class RobotPythonReferenceSearch extends QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters> {
 
+    private static final String DOT = ".";
+
     public RobotPythonReferenceSearch() {
         super(true);
     }
@@ -43,18 +52,21 @@ public class RobotPythonReferenceSearch extends QueryExecutorBase<PsiReference,
         }
 
         PsiElement element = params.getElementToSearch();
+        Project project = params.getProject();
         if (element instanceof PsiNameIdentifierOwner) {
             if (element instanceof KeywordDefinition) {
                 KeywordDefinition definition = (KeywordDefinition) element;
                 // this should really be part of the search options
-                boolean enableInlineSearch = RobotOptionsProvider.getInstance(params.getProject()).inlineVariableSearch();
-                if (definition.hasInlineVariables() && (localScope || enableInlineSearch)) {
-                    processKeywordWithInline(definition, searchScope, processor, params.getProject());
+                boolean enableInlineSearch = RobotOptionsProvider.getInstance(project).inlineVariableSearch();
+                if (!definition.hasInlineVariables()) {
+                    processKeyword(definition, definition.getPresentableText(), searchScope, processor, project);
+                } else if (localScope || enableInlineSearch) {
+                    processKeywordWithInline(definition, searchScope, processor, project);
                 } else {
                     processRobotStatement(definition, params, searchScope);
                 }
             } else {
-                processPython((PsiNameIdentifierOwner) element, params, searchScope);
+                processPython((PsiNameIdentifierOwner) element, params, searchScope, processor);
             }
         } else if (element instanceof RobotStatement) {
             processRobotStatement((RobotStatement) element, params, searchScope);
@@ -63,10 +75,18 @@ public class RobotPythonReferenceSearch extends QueryExecutorBase<PsiReference,
 
     private void processPython(@NotNull PsiNameIdentifierOwner element,
                                @NotNull ReferencesSearch.SearchParameters params,
-                               @NotNull SearchScope searchScope) {
+                               @NotNull SearchScope searchScope,
+                               @NotNull Processor<? super PsiReference> processor) {
         PsiElement identifier = element.getNameIdentifier();
-        if (identifier != null) {
-            String text = identifier.getText();
+        if (identifier == null) {
+            return;
+        }
+        String text = identifier.getText();
+        if (element instanceof PyFunction) {
+            // 'open_browser' is invoked as 'Open Browser', 'open browser', 'OpenBrowser'...; all normalize the same
+            processKeyword(element, text, searchScope, processor, params.getProject());
+        } else {
+            // variables and library classes are used as ${VAR} and in imports, not as keywords
             params.getOptimizer().searchWord(text, searchScope, UsageSearchContext.ANY, false, element);
             String keyword = PatternUtil.functionToKeyword(text);
             params.getOptimizer().searchWord(keyword, searchScope, UsageSearchContext.ANY, false, element);
@@ -80,43 +100,67 @@ public class RobotPythonReferenceSearch extends QueryExecutorBase<PsiReference,
         params.getOptimizer().searchWord(text, searchScope, UsageSearchContext.ANY, false, element);
     }
 
+    private void processKeyword(@NotNull PsiElement element,
+                                @NotNull String name,
+                                @NotNull SearchScope searchScope,
+                                @NotNull Processor<? super PsiReference> processor,
+                                @NotNull Project project) {
+        String keyword = PatternUtil.normalizeKeyword(name);
+        String namespaced = DOT + keyword;
+        Collection<VirtualFile> files = searchScope instanceof LocalSearchScope ?
+                getFiles((LocalSearchScope) searchScope) :
+                RobotKeywordUsageIndex.getFilesInvoking(keyword, (GlobalSearchScope) searchScope);
+        processKeywordUsages(element, text -> text.equals(keyword) || text.endsWith(namespaced), processor, project, files);
+    }
+
     private void processKeywordWithInline(@NotNull KeywordDefinition element,
                                           @NotNull SearchScope searchScope,
                                           @NotNull Processor<? super PsiReference> processor,
                                           @NotNull Project project) {
+        // only the literal text around the embedded arguments is known up front
+        List<String> fragments = PatternUtil.getKeywordFragments(element.getPresentableText());
         Collection<VirtualFile> files;
 
         if (searchScope instanceof LocalSearchScope) {
-            files = new HashSet<VirtualFile>();
-            for (PsiElement scopeElement : ((LocalSearchScope) searchScope).getScope()) {
-                files.add(scopeElement.getContainingFile().getVirtualFile());
-            }
+            files = getFiles((LocalSearchScope) searchScope);
         } else {
-            files = FileTypeIndex.getFiles(RobotFeatureFileType.getInstance(),
-                    GlobalSearchScope.projectScope(project));
+            GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+            if (searchScope instanceof GlobalSearchScope) {
+                scope = scope.intersectWith((GlobalSearchScope) searchScope);
+            }
+            files = RobotKeywordUsageIndex.getFilesInvoking(fragments, scope);
         }
-        processKeywordWithInline(element, processor, project, files);
+        processKeywordUsages(element, text -> PatternUtil.containsFragments(text, fragments), processor, project, files);
     }
 
-    private void processKeywordWithInline(@NotNull KeywordDefinition element,
-                                          @NotNull Processor<? super PsiReference> processor,
-                                          @NotNull Project project,
-                                          @NotNull Collection<VirtualFile> files) {
-        PerformanceCollector debug = new PerformanceCollector((PerformanceEntity) element, "ReferenceSearch");
+    @NotNull
+    private static Collection<VirtualFile> getFiles(@NotNull LocalSearchScope searchScope) {
+        Collection<VirtualFile> files = new HashSet<VirtualFile>();
+        for (PsiElement scopeElement : searchScope.getScope()) {
+            files.add(scopeElement.getContainingFile().getVirtualFile());
+        }
+        return files;
+    }
+
+    /**
+     * @param filter accepts the normalized text of the invocations and arguments that may refer to the element.
+     */
+    private void processKeywordUsages(@NotNull PsiElement element,
+                                      @NotNull Predicate<String> filter,
+                                      @NotNull Processor<? super PsiReference> processor,
+                                      @NotNull Project project,
+                                      @NotNull Collection<VirtualFile> files) {
+        PerformanceCollector debug = element instanceof PerformanceEntity ?
+                PerformanceCollector.start((PerformanceEntity) element, "ReferenceSearch") : null;
+        // within the read action of the query; only the candidate files are loaded
         boolean process = true;
         for (VirtualFile file : files) {
-            final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
-            if (psiFile instanceof RobotFile) {
-                Collection<KeywordInvokable> keywords = ((RobotFile) psiFile).getKeywordReferences(element);
-                for (KeywordInvokable keyword : keywords) {
-                    PsiReference reference = keyword.getReference();
-                    if (reference != null && reference.isReferenceTo(element)) {
-                        process = processor.process(reference);
-                    }
-                    // abort if we do not want to process more
-                    if (!process) {
-                        break;
-                    }
+            ProgressManager.checkCanceled();
+            for (PsiReference reference : findKeywordReferences(element, filter, project, file)) {
+                process = processor.process(reference);
+                // abort if we do not want to process more
+                if (!process) {
+                    break;
                 }
             }
             // abort if we do not want to process more
@@ -124,6 +168,44 @@ public class RobotPythonReferenceSearch extends QueryExecutorBase<PsiReference,
                 break;
             }
         }
-        debug.complete();
+        if (debug != null) {
+            debug.complete();
+        }
+    }
+
+    @NotNull
+    private static List<PsiReference> findKeywordReferences(@NotNull PsiElement element,
+                                                            @NotNull Predicate<String> filter,
+                                                            @NotNull Project project,
+                                                            @NotNull VirtualFile file) {
+        List<PsiReference> results = new ArrayList<PsiReference>();
+        PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        if (psiFile instanceof RobotFile) {
+            for (Heading heading : ((RobotFile) psiFile).getHeadings()) {
+                for (KeywordInvokable keyword : heading.getInvokedKeywords()) {
+                    addReference(element, filter, keyword, results);
+                    // arguments may name a keyword to run
+                    for (Argument argument : keyword.getArguments()) {
+                        addReference(element, filter, argument, results);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void addReference(@NotNull PsiElement element,
+                                     @NotNull Predicate<String> filter,
+                                     @NotNull RobotStatement statement,
+                                     @NotNull List<PsiReference> results) {
+        ProgressManager.checkCanceled();
+        // only matching text can refer to the element, so the rest is not resolved
+        if (!filter.test(PatternUtil.normalizeKeyword(statement.getPresentableText()))) {
+            return;
+        }
+        PsiReference reference = statement.getReference();
+        if (reference != null && reference.isReferenceTo(element)) {
+            results.add(reference);
+        }
     }
 }
@@ -25,6 +25,7 @@ public class RobotKeywordProvider {
     private static final Set<String> SETTINGS_FOLLOWED_BY_KEYWORDS = new HashSet<String>();
     private static final Set<String> SETTINGS_FOLLOWED_BY_STRINGS = new HashSet<String>();
     private static final Set<String> SETTINGS_FOLLOWED_BY_VARIABLE_DEFINITIONS = new HashSet<String>();
+    private static final RobotSyntaxTable SYNTAX_TABLE = new RobotSyntaxTable(128);
 
     static {
         KEYWORD_TABLE.addSyntax(RobotTokenTypes.HEADING, "*** Settings ***");
@@ -184,6 +185,35 @@ public class RobotKeywordProvider {
 
         SETTINGS_FOLLOWED_BY_VARIABLE_DEFINITIONS.add("Arguments");
         SETTINGS_FOLLOWED_BY_VARIABLE_DEFINITIONS.add("[Arguments]");
+
+        addHeading("*** Settings ***", RobotSyntaxTable.SETTINGS_HEADING);
+        addHeading("*** Setting ***", RobotSyntaxTable.SETTINGS_HEADING);
+        addHeading("*** Test Cases ***", RobotSyntaxTable.TEST_CASES_HEADING);
+        addHeading("*** Test Case ***", RobotSyntaxTable.TEST_CASES_HEADING);
+        addHeading("*** Keywords ***", RobotSyntaxTable.KEYWORDS_HEADING);
+        addHeading("*** Keyword ***", RobotSyntaxTable.KEYWORDS_HEADING);
+        addHeading("*** User Keywords ***", RobotSyntaxTable.KEYWORDS_HEADING);
+        addHeading("*** User Keyword ***", RobotSyntaxTable.KEYWORDS_HEADING);
+        addHeading("*** Variables ***", RobotSyntaxTable.VARIABLES_HEADING);
+        addHeading("*** Variable ***", RobotSyntaxTable.VARIABLES_HEADING);
+
+        addSyntaxFlags(KEYWORD_TABLE.getSyntaxOfType(RobotTokenTypes.IMPORT), RobotSyntaxTable.IMPORT, false);
+        addSyntaxFlags(KEYWORD_TABLE.getSyntaxOfType(RobotTokenTypes.BRACKET_SETTING), RobotSyntaxTable.BRACKET_SETTING, false);
+        addSyntaxFlags(KEYWORD_TABLE.getSyntaxOfType(RobotTokenTypes.GHERKIN), RobotSyntaxTable.GHERKIN, true);
+        addSyntaxFlags(GLOBAL_SETTINGS, RobotSyntaxTable.GLOBAL_SETTING, false);
+        addSyntaxFlags(SETTINGS_FOLLOWED_BY_KEYWORDS, RobotSyntaxTable.FOLLOWED_BY_KEYWORD, false);
+        addSyntaxFlags(SETTINGS_FOLLOWED_BY_STRINGS, RobotSyntaxTable.FOLLOWED_BY_STRING, false);
+        addSyntaxFlags(SETTINGS_FOLLOWED_BY_VARIABLE_DEFINITIONS, RobotSyntaxTable.FOLLOWED_BY_VARIABLE_DEFINITION, false);
+    }
+
+    private static void addHeading(@NotNull String heading, int flag) {
+        SYNTAX_TABLE.add(heading, flag, false);
+    }
+
+    private static void addSyntaxFlags(@NotNull Set<String> words, int flag, boolean ignoreCase) {
+        for (String word : words) {
+            SYNTAX_TABLE.add(word, flag, ignoreCase);
+        }
     }
 
     private static void addRecommendation(@NotNull RobotElementType type, @NotNull String word, @NotNull String lookup) {
@@ -206,6 +236,18 @@ public class RobotKeywordProvider {
         return SETTINGS_FOLLOWED_BY_VARIABLE_DEFINITIONS.contains(word);
     }
 
+    /**
+     * Classifies a word of the buffer without creating a String for it.
+     *
+     * @param buffer the text being lexed.
+     * @param start  the start offset of the word.
+     * @param end    the end offset of the word.
+     * @return the {@link RobotSyntaxTable} flags of the word; 0 if it is no known syntax.
+     */
+    public int getSyntaxFlags(@NotNull CharSequence buffer, int start, int end) {
+        return SYNTAX_TABLE.getFlags(buffer, start, end);
+    }
+
     public boolean isSyntaxOfType(RobotElementType type, String word) {
         return KEYWORD_TABLE.getSyntaxOfType(type).contains(word);
     }
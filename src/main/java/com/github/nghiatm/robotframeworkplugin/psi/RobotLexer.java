@@ -1,15 +1,22 @@
 package com.github.nghiatm.robotframeworkplugin.psi;
 
+import com.intellij.lexer.DelegateLexer;
+import com.intellij.lexer.Lexer;
 import com.intellij.lexer.LexerBase;
+import com.intellij.lexer.RestartableLexer;
+import com.intellij.lexer.TokenIterator;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.util.ArrayUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Stack;
+import java.util.Map;
 
-public class RobotLexer extends LexerBase {
+public class RobotLexer extends LexerBase implements RestartableLexer {
 
     protected static final int NONE = 0;
     protected static final int SETTINGS_HEADING = 1;
@@ -23,61 +30,117 @@ public class RobotLexer extends LexerBase {
     protected static final int VARIABLE_DEFINITION = 9;
     protected static final int SYNTAX = 10;
     protected static final int GHERKIN = 11;
-    // we might run into max int issues at some point
-    private static final int RATE = 12; // this should always be the last state + 1
+    // every state fits in a nibble; stacks up to this depth are packed into the int state directly
+    private static final int BITS_PER_LEVEL = 4;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int MAX_PACKED_DEPTH = 7;
+    // deeper stacks are registered and the state is their index flagged with the sign bit
+    private static final int REGISTERED = Integer.MIN_VALUE;
+    private static final int MAX_REGISTERED_STATES = 1 << 12;
+    private static final List<int[]> REGISTERED_STACKS = new ArrayList<int[]>();
+    private static final Map<String, Integer> REGISTERED_STATES = new HashMap<String, Integer>();
     private final RobotKeywordProvider keywordProvider;
     private CharSequence buffer = ArrayUtil.EMPTY_CHAR_SEQUENCE;
     private int startOffset;
     private int endOffset;
     private int position;
     private IElementType currentToken;
-    private Stack<Integer> level = new Stack<Integer>();
+    private int[] level = new int[MAX_PACKED_DEPTH + 1];
+    private int depth;
+    private int state;
+    private boolean stateValid = true;
 
     public RobotLexer(RobotKeywordProvider provider) {
         this.keywordProvider = provider;
     }
 
-    private static boolean isSettings(String line) {
-        return "*** Settings ***".equals(line) || "*** Setting ***".equals(line);
-    }
-
-    private static boolean isTestCases(String line) {
-        return "*** Test Cases ***".equals(line) || "*** Test Case ***".equals(line);
-    }
-
-    private static boolean isKeywords(String line) {
-        return "*** Keywords ***".equals(line) || "*** Keyword ***".equals(line);
-    }
-
-    private static boolean isUserKeywords(String line) {
-        return "*** User Keywords ***".equals(line) || "*** User Keyword ***".equals(line);
-    }
-
-    private static boolean isVariables(String line) {
-        return "*** Variables ***".equals(line) || "*** Variable ***".equals(line);
+    /**
+     * Creates a lexer for the text of a single test case or keyword definition; lexing starts out as if it
+     * directly followed a '*** Keywords ***' heading.
+     *
+     * @param provider the keyword provider.
+     * @return the definition lexer.
+     */
+    @NotNull
+    public static Lexer createDefinitionLexer(@NotNull RobotKeywordProvider provider) {
+        final int definitionState = toState(new int[]{KEYWORDS_HEADING}, 1);
+        return new DelegateLexer(new RobotLexer(provider)) {
+            @Override
+            public void start(@NotNull CharSequence buffer, int startOffset, int endOffset, int initialState) {
+                super.start(buffer, startOffset, endOffset, initialState == NONE ? definitionState : initialState);
+            }
+        };
+    }
+
+    /**
+     * Encodes the given state stack; the encoding is exact for any depth.
+     *
+     * @param stack the states, bottom first.
+     * @param depth the number of states on the stack.
+     * @return the lexer state.
+     */
+    protected static int toState(@NotNull int[] stack, int depth) {
+        if (depth <= MAX_PACKED_DEPTH) {
+            int value = 0;
+            for (int i = depth - 1; i >= 0; i--) {
+                value = (value << BITS_PER_LEVEL) | stack[i];
+            }
+            return value;
+        }
+        int[] key = Arrays.copyOf(stack, depth);
+        String text = Arrays.toString(key);
+        synchronized (REGISTERED_STACKS) {
+            Integer registered = REGISTERED_STATES.get(text);
+            if (registered == null) {
+                if (REGISTERED_STACKS.size() >= MAX_REGISTERED_STATES) {
+                    throw new IllegalStateException("Too many lexer states: " + text);
+                }
+                registered = REGISTERED | REGISTERED_STACKS.size();
+                REGISTERED_STACKS.add(key);
+                REGISTERED_STATES.put(text, registered);
+            }
+            return registered;
+        }
     }
 
-    protected static int toState(List<Integer> stack) {
-        int value = 0;
-        if (!stack.isEmpty()) {
-            int rate = 1;
-            for (Integer i : stack) {
-                value += i * rate;
-                rate *= RATE;
+    /**
+     * Decodes the state into the given stack.
+     *
+     * @param state the lexer state.
+     * @param stack the stack to fill; it is grown as needed.
+     * @return the stack holding the states, bottom first.
+     */
+    @NotNull
+    private static int[] fromState(int state, @NotNull int[] stack) {
+        if ((state & REGISTERED) != 0) {
+            int[] registered;
+            synchronized (REGISTERED_STACKS) {
+                registered = REGISTERED_STACKS.get(state & ~REGISTERED);
             }
+            int[] result = stack.length >= registered.length + 1 ? stack : new int[registered.length * 2];
+            System.arraycopy(registered, 0, result, 0, registered.length);
+            return result;
         }
-        return value;
+        int index = 0;
+        while (state != 0) {
+            stack[index++] = state & LEVEL_MASK;
+            state >>>= BITS_PER_LEVEL;
+        }
+        return stack;
     }
 
-    protected static Stack<Integer> fromState(int state) {
-        Stack<Integer> stack = new Stack<Integer>();
-        if (state > 0) {
-            while (state > 0) {
-                stack.push(state % RATE);
-                state /= RATE;
+    private static int getDepth(int state) {
+        if ((state & REGISTERED) != 0) {
+            synchronized (REGISTERED_STACKS) {
+                return REGISTERED_STACKS.get(state & ~REGISTERED).length;
             }
         }
-        return stack;
+        int depth = 0;
+        while (state != 0) {
+            depth++;
+            state >>>= BITS_PER_LEVEL;
+        }
+        return depth;
     }
 
     @Override
@@ -86,10 +149,34 @@ public class RobotLexer extends LexerBase {
         this.startOffset = startOffset;
         this.endOffset = endOffset;
         this.position = startOffset;
-        this.level = fromState(initialState);
+        this.level = fromState(initialState, this.level);
+        this.depth = getDepth(initialState);
+        this.state = initialState;
+        this.stateValid = true;
         advance();
     }
 
+    @Override
+    public void start(@NotNull CharSequence buffer, int startOffset, int endOffset, int initialState,
+                      TokenIterator tokenIterator) {
+        start(buffer, startOffset, endOffset, initialState);
+    }
+
+    @Override
+    public int getStartState() {
+        return NONE;
+    }
+
+    /**
+     * Lines either start in a heading or within a test case or keyword definition below it; these are the
+     * states the highlighter may restart lexing from.
+     */
+    @Override
+    public boolean isRestartableState(int state) {
+        int depth = getDepth(state);
+        return depth == 0 || depth == 1 || depth == 2 && (state >>> BITS_PER_LEVEL) == KEYWORD_DEFINITION;
+    }
+
     private boolean isSpecial(int position) {
         // special is defined as whitespace or anything we do before checking the state
         return isWhitespace(position) || isNewLine(position) || isComment(position);
@@ -103,7 +190,7 @@ public class RobotLexer extends LexerBase {
         }
         this.startOffset = this.position;
         int state = peekState();
-        int parentState = this.level.size() > 1 ? this.level.get(this.level.size() - 2) : NONE;
+        int parentState = this.depth > 1 ? this.level[this.depth - 2] : NONE;
 
         // these are based on the characters of a row at any given time
         if (isComment(this.position)) {
@@ -122,13 +209,13 @@ public class RobotLexer extends LexerBase {
             if (KEYWORD == state || IMPORT == state || SYNTAX == state ||
                     VARIABLE_DEFINITION == state || SETTINGS == state) {
                 if (!isEllipsis(this.position)) {
-                    this.level.pop();
+                    popState();
                     advance();
                     return;
                 }
                 // else do nothing; keep newline on this level
             } else if (KEYWORD_DEFINITION == state && !isSpecial(this.position + 1)) {
-                this.level.pop();
+                popState();
                 advance();
                 return;
             }
@@ -137,20 +224,20 @@ public class RobotLexer extends LexerBase {
             return;
         } else if (isHeading(this.position)) {
             goToEndOfLine();
-            String line = getCurrentSequence();
+            int flags = getCurrentFlags();
             this.currentToken = RobotTokenTypes.HEADING;
-            if (isSettings(line)) {
-                this.level.clear();
-                this.level.push(SETTINGS_HEADING);
-            } else if (isTestCases(line)) {
-                this.level.clear();
-                this.level.push(TEST_CASES_HEADING);
-            } else if (isKeywords(line) || isUserKeywords(line)) {
-                this.level.clear();
-                this.level.push(KEYWORDS_HEADING);
-            } else if (isVariables(line)) {
-                this.level.clear();
-                this.level.push(VARIABLES_HEADING);
+            if (hasFlag(flags, RobotSyntaxTable.SETTINGS_HEADING)) {
+                clearStates();
+                pushState(SETTINGS_HEADING);
+            } else if (hasFlag(flags, RobotSyntaxTable.TEST_CASES_HEADING)) {
+                clearStates();
+                pushState(TEST_CASES_HEADING);
+            } else if (hasFlag(flags, RobotSyntaxTable.KEYWORDS_HEADING)) {
+                clearStates();
+                pushState(KEYWORDS_HEADING);
+            } else if (hasFlag(flags, RobotSyntaxTable.VARIABLES_HEADING)) {
+                clearStates();
+                pushState(VARIABLES_HEADING);
             } else {
                 this.currentToken = RobotTokenTypes.ERROR;
             }
@@ -168,18 +255,18 @@ public class RobotLexer extends LexerBase {
                     skipWhitespace();
                 }
                 goToNextNewLineOrSuperSpace();
-                String word = getCurrentSequence();
-                if (isImport(word)) {
-                    this.level.push(IMPORT);
+                int flags = getCurrentFlags();
+                if (hasFlag(flags, RobotSyntaxTable.IMPORT)) {
+                    pushState(IMPORT);
                     this.currentToken = RobotTokenTypes.IMPORT;
-                } else if (this.keywordProvider.isGlobalSetting(word)) {
+                } else if (hasFlag(flags, RobotSyntaxTable.GLOBAL_SETTING)) {
                     this.currentToken = RobotTokenTypes.SETTING;
-                    if (this.keywordProvider.isSyntaxFollowedByKeyword(word)) {
-                        this.level.push(SYNTAX);
-                    } else if (this.keywordProvider.isSyntaxFollowedByVariableDefinition(word)) {
-                        this.level.push(SETTINGS);
-                    } else if (this.keywordProvider.isSyntaxFollowedByString(word)) {
-                        this.level.push(IMPORT);
+                    if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_KEYWORD)) {
+                        pushState(SYNTAX);
+                    } else if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_VARIABLE_DEFINITION)) {
+                        pushState(SETTINGS);
+                    } else if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_STRING)) {
+                        pushState(IMPORT);
                     } else {
                         goToEndOfLine();
                         this.currentToken = RobotTokenTypes.ERROR;
@@ -194,7 +281,7 @@ public class RobotLexer extends LexerBase {
                 }
                 goToVariableEnd();
                 //goToNextNewLineOrSuperSpace();
-                this.level.push(VARIABLE_DEFINITION);
+                pushState(VARIABLE_DEFINITION);
                 this.currentToken = RobotTokenTypes.VARIABLE_DEFINITION;
             } else if (TEST_CASES_HEADING == state || KEYWORDS_HEADING == state) {
                 if (isSuperSpace(this.position)) {
@@ -208,7 +295,7 @@ public class RobotLexer extends LexerBase {
                     this.currentToken = RobotTokenTypes.KEYWORD_DEFINITION;
                 }
                 if (isSuperSpaceOrNewline(this.position)) {
-                    this.level.push(KEYWORD_DEFINITION);
+                    pushState(KEYWORD_DEFINITION);
                 }
             } else if (KEYWORD_DEFINITION == state) {
                 if (isSuperSpace(this.position)) {
@@ -219,40 +306,39 @@ public class RobotLexer extends LexerBase {
                     if (isVariableDefinition(this.position)) {
 //                        goToNextNewLineOrSuperSpace();
                         this.currentToken = RobotTokenTypes.VARIABLE_DEFINITION;
-                        this.level.push(VARIABLE_DEFINITION);
+                        pushState(VARIABLE_DEFINITION);
                     } else {
                         this.currentToken = RobotTokenTypes.VARIABLE;
-                        this.level.push(KEYWORD);
+                        pushState(KEYWORD);
                         if (!isSuperSpaceOrNewline(this.position)) {
-                            this.level.push(KEYWORD);
+                            pushState(KEYWORD);
                         }
                     }
                 } else {
                     skipNonWhitespace();
-                    String word = getCurrentSequence();
-                    if (this.keywordProvider.isSyntaxOfType(RobotTokenTypes.GHERKIN, word)) {
+                    if (hasFlag(getCurrentFlags(), RobotSyntaxTable.GHERKIN)) {
                         this.currentToken = RobotTokenTypes.GHERKIN;
-                        this.level.push(GHERKIN);
+                        pushState(GHERKIN);
                     } else {
                         goToNextNewLineOrSuperSpaceOrVariable();
-                        word = getCurrentSequence();
-                        if (this.keywordProvider.isSyntaxOfType(RobotTokenTypes.BRACKET_SETTING, word)) {
+                        int flags = getCurrentFlags();
+                        if (hasFlag(flags, RobotSyntaxTable.BRACKET_SETTING)) {
                             this.currentToken = RobotTokenTypes.BRACKET_SETTING;
-                            if (this.keywordProvider.isSyntaxFollowedByKeyword(word)) {
-                                this.level.push(SYNTAX);
-                            } else if (this.keywordProvider.isSyntaxFollowedByVariableDefinition(word)) {
-                                this.level.push(SETTINGS);
-                            } else if (this.keywordProvider.isSyntaxFollowedByString(word)) {
-                                this.level.push(IMPORT);
+                            if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_KEYWORD)) {
+                                pushState(SYNTAX);
+                            } else if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_VARIABLE_DEFINITION)) {
+                                pushState(SETTINGS);
+                            } else if (hasFlag(flags, RobotSyntaxTable.FOLLOWED_BY_STRING)) {
+                                pushState(IMPORT);
                             } else {
                                 goToEndOfLine();
                                 this.currentToken = RobotTokenTypes.ERROR;
                             }
                         } else {
                             this.currentToken = RobotTokenTypes.KEYWORD;
-                            this.level.push(KEYWORD);
+                            pushState(KEYWORD);
                             if (!isSuperSpaceOrNewline(this.position)) {
-                                this.level.push(KEYWORD);
+                                pushState(KEYWORD);
                             }
                         }
                     }
@@ -262,7 +348,7 @@ public class RobotLexer extends LexerBase {
                     skipWhitespace();
                     this.currentToken = RobotTokenTypes.WHITESPACE;
                     if (KEYWORD == state && KEYWORD == parentState) {
-                        this.level.pop();
+                        popState();
                     }
                 } else if (isEllipsis(this.position)) {
                     if (isOnlyWhitespaceToPreviousLine(this.position - 1)) {
@@ -289,7 +375,7 @@ public class RobotLexer extends LexerBase {
                             this.currentToken = RobotTokenTypes.VARIABLE_DEFINITION;
                         } else {
                             goToNextNewLineOrSuperSpace();
-                            this.level.push(KEYWORD);
+                            pushState(KEYWORD);
                             this.currentToken = RobotTokenTypes.KEYWORD;
                         }
                     } else if (isVariable(this.position)) {
@@ -314,11 +400,11 @@ public class RobotLexer extends LexerBase {
                     this.currentToken = RobotTokenTypes.WHITESPACE;
                 } else {
                     goToNextNewLineOrSuperSpace();
-                    this.level.push(KEYWORD);
+                    pushState(KEYWORD);
                     this.currentToken = RobotTokenTypes.KEYWORD;
                 }
             } else if (GHERKIN == state) {
-                this.level.pop();
+                popState();
                 this.currentToken = RobotTokenTypes.WHITESPACE;
                 this.position++;
             } else {
@@ -327,8 +413,12 @@ public class RobotLexer extends LexerBase {
         }
     }
 
-    private String getCurrentSequence() {
-        return this.buffer.subSequence(this.startOffset, this.position).toString();
+    private int getCurrentFlags() {
+        return this.keywordProvider.getSyntaxFlags(this.buffer, this.startOffset, this.position);
+    }
+
+    private static boolean hasFlag(int flags, int flag) {
+        return (flags & flag) != 0;
     }
 
     private boolean isVariable(int position) {
@@ -440,23 +530,41 @@ public class RobotLexer extends LexerBase {
         return isSuperSpace(position) || isNewLine(position);
     }
 
-    private boolean isImport(String nextWord) {
-        return this.keywordProvider.isSyntaxOfType(RobotTokenTypes.IMPORT, nextWord);
-    }
-
     private void goToEndOfLine() {
         while (this.position < this.endOffset && !isNewLine(this.position)) {
             this.position++;
         }
     }
 
+    private void pushState(int state) {
+        if (this.depth == this.level.length) {
+            this.level = Arrays.copyOf(this.level, this.depth * 2);
+        }
+        this.level[this.depth++] = state;
+        this.stateValid = false;
+    }
+
+    private void popState() {
+        this.depth--;
+        this.stateValid = false;
+    }
+
+    private void clearStates() {
+        this.depth = 0;
+        this.stateValid = false;
+    }
+
     @Override
     public int getState() {
-        return toState(this.level);
+        if (!this.stateValid) {
+            this.state = toState(this.level, this.depth);
+            this.stateValid = true;
+        }
+        return this.state;
     }
 
     public int peekState() {
-        return this.level.isEmpty() ? NONE : this.level.peek();
+        return this.depth == 0 ? NONE : this.level[this.depth - 1];
     }
 
     @Nullable
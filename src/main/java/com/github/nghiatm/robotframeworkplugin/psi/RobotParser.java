@@ -1,8 +1,13 @@
 package com.github.nghiatm.robotframeworkplugin.psi;
 
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
 import com.intellij.lang.ASTNode;
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.lang.ParserDefinition;
 import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
 import com.intellij.lang.PsiParser;
+import com.intellij.lexer.Lexer;
 import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -12,7 +17,7 @@ import org.jetbrains.annotations.Nullable;
  */
 public class RobotParser implements PsiParser {
 
-    private static void done(@Nullable PsiBuilder.Marker marker, @NotNull RobotElementType type) {
+    private static void done(@Nullable PsiBuilder.Marker marker, @NotNull IElementType type) {
         if (marker != null) {
             marker.done(type);
         }
@@ -31,92 +36,101 @@ public class RobotParser implements PsiParser {
 
     private static void parseHeading(@NotNull PsiBuilder builder) {
         assert RobotTokenTypes.HEADING == builder.getTokenType();
-        PsiBuilder.Marker headingMarker = null;
-        while (true) {
+        while (RobotTokenTypes.HEADING == builder.getTokenType()) {
+            PsiBuilder.Marker headingMarker = builder.mark();
+            parseHeadingContents(builder);
+            headingMarker.done(RobotStubElementTypes.HEADING);
+        }
+    }
+
+    /**
+     * Parses everything of a heading up until the next heading; the caller owns the heading marker.
+     *
+     * @param builder the psi builder positioned on the heading token.
+     */
+    private static void parseHeadingContents(@NotNull PsiBuilder builder) {
+        assert RobotTokenTypes.HEADING == builder.getTokenType();
+        builder.advanceLexer();
+        while (!builder.eof()) {
             IElementType type = builder.getTokenType();
             if (RobotTokenTypes.HEADING == type) {
-                done(headingMarker, RobotTokenTypes.HEADING);
-                headingMarker = builder.mark();
-                builder.advanceLexer();
-            }
-
-            if (builder.eof()) {
-                done(headingMarker, RobotTokenTypes.HEADING);
                 break;
+            } else if (RobotTokenTypes.IMPORT == type) {
+                parseImport(builder);
+            } else if (RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.WHITESPACE)) {
+                parseVariableDefinition(builder);
+            } else if (RobotTokenTypes.SETTING == type) {
+                parseSetting(builder);
+            } else if (RobotTokenTypes.KEYWORD_DEFINITION == type ||
+                    RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.KEYWORD_DEFINITION)) {
+                parseKeywordDefinition(builder);
+            } else if (RobotTokenTypes.KEYWORD == type) {
+                parseKeywordStatement(builder, RobotTokenTypes.KEYWORD_STATEMENT, false);
             } else {
-                type = builder.getTokenType();
-                if (RobotTokenTypes.HEADING == type) {
-                    //noinspection UnnecessaryContinue
-                    continue;
-                } else if (RobotTokenTypes.IMPORT == type) {
-                    parseImport(builder);
-                } else if (RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.WHITESPACE)) {
-                    parseVariableDefinition(builder);
-                } else if (RobotTokenTypes.SETTING == type) {
-                    parseSetting(builder);
-                } else if (RobotTokenTypes.KEYWORD_DEFINITION == type ||
-                        RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.KEYWORD_DEFINITION)) {
-                    parseKeywordDefinition(builder);
-                } else if (RobotTokenTypes.KEYWORD == type) {
-                    parseKeywordStatement(builder, RobotTokenTypes.KEYWORD_STATEMENT, false);
-                } else {
-                    // other types; error
-                    //System.out.println(type);
-                    builder.advanceLexer();
-                }
+                // other types; error
+                //System.out.println(type);
+                builder.advanceLexer();
             }
         }
     }
 
     private static void parseKeywordDefinition(@NotNull PsiBuilder builder) {
-        PsiBuilder.Marker keywordMarker = null;
-        PsiBuilder.Marker keywordIdMarker = null;
-        while (true) {
+        while (!builder.eof() && RobotTokenTypes.HEADING != builder.getTokenType()) {
+            PsiBuilder.Marker keywordMarker = builder.mark();
+            parseKeywordDefinitionContents(builder);
+            keywordMarker.done(RobotStubElementTypes.KEYWORD_DEFINITION);
+        }
+    }
+
+    /**
+     * Parses a single test case or keyword definition up until the start of the next one or the next heading;
+     * the caller owns the definition marker.
+     *
+     * @param builder the psi builder positioned on the first token of the definition name.
+     */
+    private static void parseKeywordDefinitionContents(@NotNull PsiBuilder builder) {
+        PsiBuilder.Marker keywordIdMarker = builder.mark();
+        boolean first = true;
+        while (!builder.eof()) {
             IElementType type = builder.getTokenType();
-            if (RobotTokenTypes.KEYWORD_DEFINITION == type ||
-                    RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.KEYWORD_DEFINITION)) {
-                if (builder.rawLookup(-1) != RobotTokenTypes.VARIABLE_DEFINITION) {
-                    done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
-                    done(keywordMarker, RobotTokenTypes.KEYWORD_DEFINITION);
-                    keywordMarker = builder.mark();
-                    keywordIdMarker = builder.mark();
-                }
-                if (RobotTokenTypes.KEYWORD_DEFINITION == type) {
-                    builder.advanceLexer();
-                }
+            if (RobotTokenTypes.HEADING == type || !first && isKeywordDefinitionStart(builder)) {
+                break;
             }
-
-            if (builder.eof()) {
+            first = false;
+            // not all the time; all cases but VAR_DEF (when in keyword definition only)
+            if (RobotTokenTypes.KEYWORD_DEFINITION == type) {
+                // the name; possibly the remainder after an inline variable
+                builder.advanceLexer();
+            } else if (RobotTokenTypes.BRACKET_SETTING == type) {
                 done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
-                done(keywordMarker, RobotTokenTypes.KEYWORD_DEFINITION);
-                break;
-            } else {
-                type = builder.getTokenType();
-                // not all the time; all cases but VAR_DEF (when in keyword definition only)
-                if (RobotTokenTypes.HEADING == type) {
-                    done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
-                    done(keywordMarker, RobotTokenTypes.KEYWORD_DEFINITION);
-                    break;
-                } else if (RobotTokenTypes.BRACKET_SETTING == type) {
-                    done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
-                    keywordIdMarker = null;
-                    parseBracketSetting(builder);
-                } else if (RobotTokenTypes.ERROR == type) {
-                    // not sure
-                    builder.advanceLexer();
-                } else if (RobotTokenTypes.VARIABLE_DEFINITION == type) {
-                    PsiBuilder.Marker statement = parseKeywordStatement(builder, RobotTokenTypes.VARIABLE_DEFINITION, true);
-                    if (statement != null && keywordIdMarker != null) {
-                        keywordIdMarker.doneBefore(RobotTokenTypes.KEYWORD_DEFINITION_ID, statement);
-                        keywordIdMarker = null;
-                    }
-                } else {
-                    done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
+                keywordIdMarker = null;
+                parseBracketSetting(builder);
+            } else if (RobotTokenTypes.ERROR == type) {
+                // not sure
+                builder.advanceLexer();
+            } else if (RobotTokenTypes.VARIABLE_DEFINITION == type) {
+                PsiBuilder.Marker statement = parseKeywordStatement(builder, RobotStubElementTypes.VARIABLE_DEFINITION, true);
+                if (statement != null && keywordIdMarker != null) {
+                    keywordIdMarker.doneBefore(RobotTokenTypes.KEYWORD_DEFINITION_ID, statement);
                     keywordIdMarker = null;
-                    parseKeywordStatement(builder, RobotTokenTypes.KEYWORD_STATEMENT, false);
                 }
+            } else {
+                done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
+                keywordIdMarker = null;
+                parseKeywordStatement(builder, RobotTokenTypes.KEYWORD_STATEMENT, false);
             }
         }
+        done(keywordIdMarker, RobotTokenTypes.KEYWORD_DEFINITION_ID);
+    }
+
+    /**
+     * A definition starts with its name; a name token following an inline variable continues the current name.
+     */
+    private static boolean isKeywordDefinitionStart(@NotNull PsiBuilder builder) {
+        IElementType type = builder.getTokenType();
+        return (RobotTokenTypes.KEYWORD_DEFINITION == type ||
+                RobotTokenTypes.VARIABLE_DEFINITION == type && isNextToken(builder, RobotTokenTypes.KEYWORD_DEFINITION)) &&
+                builder.rawLookup(-1) != RobotTokenTypes.VARIABLE_DEFINITION;
     }
 
     private static PsiBuilder.Marker parseKeywordStatement(@NotNull PsiBuilder builder, @NotNull IElementType rootType, boolean skipGherkin) {
@@ -196,11 +210,11 @@ public class RobotParser implements PsiParser {
     }
 
     private static void parseImport(@NotNull PsiBuilder builder) {
-        parseWithArguments(builder, RobotTokenTypes.IMPORT);
+        parseWithArguments(builder, RobotTokenTypes.IMPORT, RobotStubElementTypes.IMPORT);
     }
 
     private static void parseVariableDefinition(@NotNull PsiBuilder builder) {
-        parseWithArguments(builder, RobotTokenTypes.VARIABLE_DEFINITION);
+        parseWithArguments(builder, RobotTokenTypes.VARIABLE_DEFINITION, RobotStubElementTypes.VARIABLE_DEFINITION);
     }
 
     private static void parseVariableDefinitionWithDefaults(@NotNull PsiBuilder builder) {
@@ -211,7 +225,7 @@ public class RobotParser implements PsiParser {
         PsiBuilder.Marker definitionIdMarker = builder.mark();
         builder.advanceLexer();
         definitionIdMarker.done(RobotTokenTypes.VARIABLE_DEFINITION_ID);
-        definitionMarker.done(RobotTokenTypes.VARIABLE_DEFINITION);
+        definitionMarker.done(RobotStubElementTypes.VARIABLE_DEFINITION);
         IElementType token = builder.getTokenType();
         while (!builder.eof() && (token == RobotTokenTypes.ARGUMENT || token == RobotTokenTypes.VARIABLE)) {
             PsiBuilder.Marker variableMarker = null;
@@ -232,6 +246,11 @@ public class RobotParser implements PsiParser {
     }
 
     private static void parseWithArguments(@NotNull PsiBuilder builder, @NotNull IElementType markType) {
+        parseWithArguments(builder, markType, markType);
+    }
+
+    private static void parseWithArguments(@NotNull PsiBuilder builder, @NotNull IElementType markType,
+                                           @NotNull IElementType elementType) {
         IElementType type = builder.getTokenType();
         assert markType == type;
         PsiBuilder.Marker importMarker = builder.mark();
@@ -260,7 +279,7 @@ public class RobotParser implements PsiParser {
                 break;
             }
         }
-        importMarker.done(markType);
+        importMarker.done(elementType);
     }
 
     private static void parseWith(@NotNull PsiBuilder builder, @NotNull IElementType type) {
@@ -288,6 +307,54 @@ public class RobotParser implements PsiParser {
         argumentMarker.done(type);
     }
 
+    /**
+     * Parses the text of a single heading, including its contents, when it is reparsed on its own.
+     *
+     * @param root the heading element type.
+     * @param text the new text of the heading.
+     * @return the heading node.
+     */
+    @NotNull
+    public static ASTNode parseHeading(@NotNull IElementType root, @NotNull CharSequence text) {
+        PsiBuilder builder = createBuilder(new RobotLexer(RobotKeywordProvider.getInstance()), text);
+        PsiBuilder.Marker marker = builder.mark();
+        if (RobotTokenTypes.HEADING == builder.getTokenType()) {
+            parseHeadingContents(builder);
+        }
+        skipRemaining(builder);
+        marker.done(root);
+        return builder.getTreeBuilt();
+    }
+
+    /**
+     * Parses the text of a single test case or keyword definition when it is reparsed on its own.
+     *
+     * @param root the keyword definition element type.
+     * @param text the new text of the definition.
+     * @return the definition node.
+     */
+    @NotNull
+    public static ASTNode parseKeywordDefinition(@NotNull IElementType root, @NotNull CharSequence text) {
+        PsiBuilder builder = createBuilder(RobotLexer.createDefinitionLexer(RobotKeywordProvider.getInstance()), text);
+        PsiBuilder.Marker marker = builder.mark();
+        parseKeywordDefinitionContents(builder);
+        skipRemaining(builder);
+        marker.done(root);
+        return builder.getTreeBuilt();
+    }
+
+    @NotNull
+    private static PsiBuilder createBuilder(@NotNull Lexer lexer, @NotNull CharSequence text) {
+        ParserDefinition definition = LanguageParserDefinitions.INSTANCE.forLanguage(RobotLanguage.INSTANCE);
+        return PsiBuilderFactory.getInstance().createBuilder(definition, lexer, text);
+    }
+
+    private static void skipRemaining(@NotNull PsiBuilder builder) {
+        while (!builder.eof()) {
+            builder.advanceLexer();
+        }
+    }
+
     @NotNull
     @Override
     public ASTNode parse(@NotNull IElementType root, @NotNull PsiBuilder builder) {
@@ -13,6 +13,7 @@ import com.github.nghiatm.robotframeworkplugin.psi.element.SettingImpl;
 import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinitionIdImpl;
 import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinitionImpl;
 import com.github.nghiatm.robotframeworkplugin.psi.element.VariableImpl;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
 import com.intellij.lang.ASTNode;
 import com.intellij.lang.ParserDefinition;
 import com.intellij.lang.PsiParser;
@@ -73,16 +74,16 @@ public class RobotParserDefinition implements ParserDefinition {
     @NotNull
     @Override
     public PsiElement createElement(ASTNode node) {
-        if (node.getElementType() == RobotTokenTypes.KEYWORD_DEFINITION) return new KeywordDefinitionImpl(node);
+        if (node.getElementType() == RobotStubElementTypes.KEYWORD_DEFINITION) return new KeywordDefinitionImpl(node);
         if (node.getElementType() == RobotTokenTypes.KEYWORD_DEFINITION_ID) return new KeywordDefinitionIdImpl(node);
         if (node.getElementType() == RobotTokenTypes.KEYWORD_STATEMENT) return new KeywordStatementImpl(node);
         if (node.getElementType() == RobotTokenTypes.KEYWORD) return new KeywordInvokableImpl(node);
-        if (node.getElementType() == RobotTokenTypes.VARIABLE_DEFINITION) return new VariableDefinitionImpl(node);
+        if (node.getElementType() == RobotStubElementTypes.VARIABLE_DEFINITION) return new VariableDefinitionImpl(node);
         if (node.getElementType() == RobotTokenTypes.VARIABLE_DEFINITION_ID) return new VariableDefinitionIdImpl(node);
-        if (node.getElementType() == RobotTokenTypes.HEADING) return new HeadingImpl(node);
+        if (node.getElementType() == RobotStubElementTypes.HEADING) return new HeadingImpl(node);
         if (node.getElementType() == RobotTokenTypes.ARGUMENT) return new ArgumentImpl(node);
         if (node.getElementType() == RobotTokenTypes.VARIABLE) return new VariableImpl(node);
-        if (node.getElementType() == RobotTokenTypes.IMPORT) return new ImportImpl(node);
+        if (node.getElementType() == RobotStubElementTypes.IMPORT) return new ImportImpl(node);
         if (node.getElementType() == RobotTokenTypes.SETTING) return new SettingImpl(node);
         if (node.getElementType() == RobotTokenTypes.BRACKET_SETTING) return new BracketSettingImpl(node);
 
@@ -0,0 +1,115 @@
+package com.github.nghiatm.robotframeworkplugin.psi;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An open addressing table from syntax words to a set of flags, looked up directly on a range of a
+ * {@link CharSequence} so that the lexer can classify a token without creating a String for it.
+ * <p>
+ * Words are hashed ignoring case; each entry remembers whether it has to match case sensitively.
+ */
+public class RobotSyntaxTable {
+
+    public static final int IMPORT = 1;
+    public static final int GLOBAL_SETTING = 1 << 1;
+    public static final int BRACKET_SETTING = 1 << 2;
+    public static final int GHERKIN = 1 << 3;
+    public static final int FOLLOWED_BY_KEYWORD = 1 << 4;
+    public static final int FOLLOWED_BY_STRING = 1 << 5;
+    public static final int FOLLOWED_BY_VARIABLE_DEFINITION = 1 << 6;
+    public static final int SETTINGS_HEADING = 1 << 7;
+    public static final int TEST_CASES_HEADING = 1 << 8;
+    public static final int KEYWORDS_HEADING = 1 << 9;
+    public static final int VARIABLES_HEADING = 1 << 10;
+
+    private static final int LOAD_FACTOR = 4;
+
+    private final String[] words;
+    private final int[] hashes;
+    private final int[] flags;
+    private final boolean[] ignoreCase;
+    private final int mask;
+    private int size;
+
+    /**
+     * @param capacity the maximum number of distinct entries this table will hold.
+     */
+    public RobotSyntaxTable(int capacity) {
+        int length = Integer.highestOneBit(Math.max(capacity, 1) * LOAD_FACTOR - 1) << 1;
+        this.words = new String[length];
+        this.hashes = new int[length];
+        this.flags = new int[length];
+        this.ignoreCase = new boolean[length];
+        this.mask = length - 1;
+    }
+
+    /**
+     * Adds the flags to the given word; flags of a word added more than once are combined.
+     *
+     * @param word       the syntax word.
+     * @param flags      the flags to set for the word.
+     * @param ignoreCase true if the word matches regardless of case.
+     */
+    public void add(@NotNull String word, int flags, boolean ignoreCase) {
+        int hash = hash(word, 0, word.length());
+        int slot = hash & this.mask;
+        while (this.words[slot] != null) {
+            if (this.ignoreCase[slot] == ignoreCase && this.words[slot].equals(word)) {
+                this.flags[slot] |= flags;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        if ((this.size + 1) * 2 > this.words.length) {
+            throw new IllegalStateException("Syntax table is full");
+        }
+        this.words[slot] = word;
+        this.hashes[slot] = hash;
+        this.flags[slot] = flags;
+        this.ignoreCase[slot] = ignoreCase;
+        this.size++;
+    }
+
+    /**
+     * @param buffer the text to look in.
+     * @param start  the start offset of the word.
+     * @param end    the end offset of the word.
+     * @return the combined flags of all entries matching the word; 0 if none do.
+     */
+    public int getFlags(@NotNull CharSequence buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int length = end - start;
+        int result = 0;
+        int slot = hash & this.mask;
+        String word;
+        while ((word = this.words[slot]) != null) {
+            if (this.hashes[slot] == hash && word.length() == length &&
+                    matches(word, buffer, start, this.ignoreCase[slot])) {
+                result |= this.flags[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return result;
+    }
+
+    private static boolean matches(@NotNull String word, @NotNull CharSequence buffer, int start, boolean ignoreCase) {
+        for (int i = 0; i < word.length(); i++) {
+            char expected = word.charAt(i);
+            char actual = buffer.charAt(start + i);
+            if (expected != actual &&
+                    (!ignoreCase || Character.toLowerCase(expected) != Character.toLowerCase(actual))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(@NotNull CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        // spread the bits so that the low bits used for the slot are not just the last characters
+        return hash ^ (hash >>> 16);
+    }
+}
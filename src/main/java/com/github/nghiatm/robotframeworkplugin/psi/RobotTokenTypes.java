@@ -1,11 +1,11 @@
 package com.github.nghiatm.robotframeworkplugin.psi;
 
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotFileElementType;
 import com.intellij.psi.tree.IFileElementType;
-import com.intellij.psi.tree.IStubFileElementType;
 
 public interface RobotTokenTypes {
 
-    IFileElementType FILE = new IStubFileElementType<>(RobotLanguage.INSTANCE);
+    IFileElementType FILE = new RobotFileElementType();
     RobotElementType HEADING = new RobotElementType("HEADING");
     RobotElementType SETTING = new RobotElementType("SETTING");
     RobotElementType BRACKET_SETTING = new RobotElementType("BRACKET_SETTING");
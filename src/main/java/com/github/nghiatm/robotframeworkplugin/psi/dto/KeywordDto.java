@@ -19,14 +19,15 @@ public class KeywordDto implements DefinedKeyword {
 
 
     private final PsiElement reference;
+    private final String namespace;
     private final String name;
     private final boolean args;
-    private final Pattern namePattern;
+    private Pattern namePattern;
 
     public KeywordDto(@NotNull PsiElement reference, @NotNull String namespace, @NotNull String name, boolean args) {
         this.reference = reference;
+        this.namespace = namespace;
         this.name = PatternUtil.functionToKeyword(name).trim();
-        this.namePattern = Pattern.compile(PatternBuilder.parseNamespaceKeyword(namespace, this.name), Pattern.CASE_INSENSITIVE);
         this.args = args;
     }
 
@@ -43,7 +44,20 @@ public class KeywordDto implements DefinedKeyword {
     @Override
     public boolean matches(String text) {
         return text != null &&
-                this.namePattern.matcher(PatternUtil.functionToKeyword(text).trim()).matches();
+                getNamePattern().matcher(PatternUtil.functionToKeyword(text).trim()).matches();
+    }
+
+    /**
+     * Most python keywords are only ever found by name so the pattern is compiled on first use.
+     */
+    @NotNull
+    private Pattern getNamePattern() {
+        Pattern pattern = this.namePattern;
+        if (pattern == null) {
+            pattern = Pattern.compile(PatternBuilder.parseNamespaceKeyword(this.namespace, this.name), Pattern.CASE_INSENSITIVE);
+            this.namePattern = pattern;
+        }
+        return pattern;
     }
 
     @Override
@@ -51,6 +65,12 @@ public class KeywordDto implements DefinedKeyword {
         return this.reference;
     }
 
+    @NotNull
+    @Override
+    public String getNamespace() {
+        return this.namespace;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,6 +1,7 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author mrubino
@@ -17,5 +18,11 @@ public interface DefinedKeyword {
 
     boolean matches(String text);
 
+    /**
+     * @return the namespace the keyword can be prefixed with; null if it has none.
+     */
+    @Nullable
+    String getNamespace();
+
     PsiElement reference();
 }
@@ -32,8 +32,6 @@ public interface Heading extends RobotStatement {
     @NotNull
     Collection<DefinedVariable> getDefinedVariables();
 
-    void importsChanged();
-
     @NotNull
     Collection<KeywordInvokable> getInvokedKeywords();
 
@@ -2,50 +2,61 @@ package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.github.nghiatm.robotframeworkplugin.ide.icons.RobotIcons;
 import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
-import com.github.nghiatm.robotframeworkplugin.psi.dto.VariableDto;
 import com.github.nghiatm.robotframeworkplugin.psi.ref.PythonResolver;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotBuiltInLibrary;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotFileManager;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotFileResolution;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotImportCache;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotLibdocFile;
 import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotPythonClass;
 import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotPythonFile;
-import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.HeadingStub;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotCacheUtil;
 import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiReference;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.util.containers.MultiMap;
+import com.jetbrains.python.PythonLanguage;
 import com.jetbrains.python.psi.PyClass;
 import com.jetbrains.python.psi.PyFile;
-import com.github.nghiatm.robotframeworkplugin.psi.util.ReservedVariable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 
 /**
  * @author Stephen Abrams
  */
-public class HeadingImpl extends RobotPsiElementBase implements Heading {
+public class HeadingImpl extends RobotStubPsiElementBase<HeadingStub> implements Heading {
 
-    private static final String ROBOT_BUILT_IN = "BuiltIn";
-    private static final String WITH_NAME = "WITH NAME";
-    private static Collection<DefinedVariable> BUILT_IN_VARIABLES = null;
-    private Collection<KeywordInvokable> invokedKeywords;
-    private MultiMap<String, KeywordInvokable> invokableReferences;
-    private Collection<Variable> usedVariables;
-    private Collection<DefinedKeyword> definedKeywords;
-    private Collection<DefinedKeyword> testCases;
-    private Collection<KeywordFile> keywordFiles;
-    private Collection<PsiFile> referencedFiles;
-    private Collection<DefinedVariable> declaredVariables;
+    private static final Key<CachedValue<Collection<KeywordInvokable>>> INVOKED_KEYWORDS = Key.create("robot.heading.invoked.keywords");
+    private static final Key<CachedValue<Collection<DefinedKeyword>>> DEFINED_KEYWORDS = Key.create("robot.heading.defined.keywords");
+    private static final Key<CachedValue<Collection<DefinedKeyword>>> TEST_CASES = Key.create("robot.heading.test.cases");
+    private static final Key<CachedValue<Collection<KeywordFile>>> IMPORTED_FILES = Key.create("robot.heading.imported.files");
+    private static final Key<CachedValue<Collection<DefinedVariable>>> DEFINED_VARIABLES = Key.create("robot.heading.defined.variables");
 
     public HeadingImpl(@NotNull final ASTNode node) {
         super(node);
     }
 
+    public HeadingImpl(@NotNull HeadingStub stub, @NotNull IStubElementType nodeType) {
+        super(stub, nodeType);
+    }
+
+    @NotNull
+    @Override
+    protected String getPresentableText(@NotNull HeadingStub stub) {
+        return stub.getText();
+    }
+
     @Override
     public boolean isSettings() {
         // TODO: better OO
@@ -86,39 +97,15 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
                 ((RobotFile) file).importsChanged();
             }
         }
-        this.definedKeywords = null;
-        this.testCases = null;
-        this.keywordFiles = null;
-        this.invokedKeywords = null;
-        this.invokableReferences = null;
-        this.usedVariables = null;
-        this.referencedFiles = null;
-        this.declaredVariables = null;
-    }
-
-    @Override
-    public void importsChanged() {
-        this.definedKeywords = null;
-        this.testCases = null;
-        this.keywordFiles = null;
-        this.invokedKeywords = null;
-        this.invokableReferences = null;
-        this.usedVariables = null;
-        this.referencedFiles = null;
-        this.declaredVariables = null;
     }
 
     @NotNull
     @Override
     public Collection<DefinedVariable> getDefinedVariables() {
-        Collection<DefinedVariable> results = this.declaredVariables;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "defined variables");
-            results = collectVariables();
-            this.declaredVariables = results;
-            debug.complete();
-        }
-        return results;
+        // copies the variables of imported python variable files
+        return RobotCacheUtil.getCachedValue(this, DEFINED_VARIABLES, "defined variables", this::collectVariables,
+                PsiModificationTracker.getInstance(getProject()).forLanguage(PythonLanguage.getInstance()),
+                RobotImportCache.getInstance(getProject()).getModificationTracker());
     }
 
     @NotNull
@@ -126,7 +113,7 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
         Collection<DefinedVariable> results = new LinkedHashSet<DefinedVariable>();
         addBuiltInVariables(results);
         if (containsVariables()) {
-            for (PsiElement child : getChildren()) {
+            for (VariableDefinition child : getStubOrPsiChildren(RobotStubElementTypes.VARIABLE_DEFINITION, new VariableDefinition[0])) {
                 if (child instanceof DefinedVariable) {
                     results.add((DefinedVariable) child);
                 }
@@ -146,37 +133,15 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
     }
 
     // TODO: code highlight is not quite working; see KyleEtlPubAdPart.robot; think it has to do with name difference GLOBAL_VARIABLE vs CURDIR etc
-    private synchronized Collection<DefinedVariable> getBuiltInVariables() {
-        if (BUILT_IN_VARIABLES == null) {
-            Collection<DefinedVariable> results = new LinkedHashSet<DefinedVariable>();
-
-            for (ReservedVariable variable : ReservedVariable.values()) {
-                PsiElement pythonVariable = variable.getVariable(getProject());
-                if (pythonVariable != null) {
-                    // already formatted ${X}
-                    results.add(new VariableDto(pythonVariable, variable.getVariable(), variable.getScope()));
-                }
-            }
-
-            BUILT_IN_VARIABLES = results.isEmpty() ?
-                    Collections.<DefinedVariable>emptySet() :
-                    Collections.unmodifiableCollection(results);
-        }
-
-        return BUILT_IN_VARIABLES;
+    @NotNull
+    private Collection<DefinedVariable> getBuiltInVariables() {
+        return RobotBuiltInLibrary.getInstance(getProject()).getBuiltInVariables();
     }
 
     @NotNull
     @Override
     public Collection<DefinedKeyword> getDefinedKeywords() {
-        Collection<DefinedKeyword> results = this.definedKeywords;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "defined keywords");
-            results = collectDefinedKeywords();
-            this.definedKeywords = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, DEFINED_KEYWORDS, "defined keywords", this::collectDefinedKeywords);
     }
 
     @NotNull
@@ -185,7 +150,7 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
             return Collections.emptySet();
         }
         Collection<DefinedKeyword> results = new LinkedHashSet<DefinedKeyword>();
-        for (PsiElement child : getChildren()) {
+        for (KeywordDefinition child : getStubOrPsiChildren(RobotStubElementTypes.KEYWORD_DEFINITION, new KeywordDefinition[0])) {
             if (child instanceof DefinedKeyword) {
                 results.add(((DefinedKeyword) child));
             }
@@ -196,14 +161,7 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
     @NotNull
     @Override
     public Collection<DefinedKeyword> getTestCases() {
-        Collection<DefinedKeyword> results = this.testCases;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "defined test cases");
-            results = collectTestCases();
-            this.testCases = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, TEST_CASES, "defined test cases", this::collectTestCases);
     }
 
     @NotNull
@@ -212,7 +170,7 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
             return Collections.emptySet();
         }
         Collection<DefinedKeyword> results = new LinkedHashSet<DefinedKeyword>();
-        for (PsiElement child : getChildren()) {
+        for (KeywordDefinition child : getStubOrPsiChildren(RobotStubElementTypes.KEYWORD_DEFINITION, new KeywordDefinition[0])) {
             if (child instanceof DefinedKeyword) {
                 results.add(((DefinedKeyword) child));
             }
@@ -223,64 +181,13 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
     @NotNull
     @Override
     public Collection<PsiFile> getFilesFromInvokedKeywordsAndVariables() {
-        Collection<PsiFile> results = this.referencedFiles;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "files from invoked keywords");
-            results = collectReferencedFiles();
-            this.referencedFiles = results;
-            debug.complete();
-        }
-        return results;
-    }
-
-    @NotNull
-    private Collection<PsiFile> collectReferencedFiles() {
-        Collection<PsiFile> results = new HashSet<PsiFile>();
-        for (KeywordInvokable keyword : getInvokedKeywords()) {
-            PsiReference reference = keyword.getReference();
-            if (reference != null) {
-                PsiElement resolved = reference.resolve();
-                if (resolved != null) {
-                    results.add(resolved.getContainingFile());
-                }
-            }
-            addReferencedArguments(results, keyword);
-        }
-        for (Variable variable : getUsedVariables()) {
-            PsiReference reference = variable.getReference();
-            if (reference != null) {
-                PsiElement resolved = reference.resolve();
-                if (resolved != null) {
-                    results.add(resolved.getContainingFile());
-                }
-            }
-        }
-        return results;
-    }
-
-    private void addReferencedArguments(@NotNull Collection<PsiFile> results, @NotNull KeywordInvokable keyword) {
-        for (Argument argument : keyword.getArguments()) {
-            PsiReference reference = argument.getReference();
-            if (reference != null) {
-                PsiElement resolved = reference.resolve();
-                if (resolved != null) {
-                    results.add(resolved.getContainingFile());
-                }
-            }
-        }
+        return RobotFileResolution.getInstance(getContainingFile()).getReferencedFiles(this);
     }
 
     @Override
     @NotNull
     public Collection<KeywordInvokable> getInvokedKeywords() {
-        Collection<KeywordInvokable> results = this.invokedKeywords;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "invoked keywords");
-            results = collectInvokedKeywords();
-            this.invokedKeywords = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, INVOKED_KEYWORDS, "invoked keywords", this::collectInvokedKeywords);
     }
 
     @NotNull
@@ -291,68 +198,14 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
     @NotNull
     @Override
     public Collection<KeywordInvokable> getKeywordReferences(@Nullable KeywordDefinition definition) {
-        MultiMap<String, KeywordInvokable> references = getKeywordReferences();
-        return definition == null ? Collections.<KeywordInvokable>emptySet() : references.get(definition.getPresentableText());
-    }
-
-    @NotNull
-    private MultiMap<String, KeywordInvokable> getKeywordReferences() {
-        MultiMap<String, KeywordInvokable> results = this.invokableReferences;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "keyword references");
-            results = collectKeywordReferences();
-            this.invokableReferences = results;
-            debug.complete();
-        }
-        return results;
-    }
-
-    @NotNull
-    private MultiMap<String, KeywordInvokable> collectKeywordReferences() {
-        MultiMap<String, KeywordInvokable> results = new MultiMap<String, KeywordInvokable>();
-        for (KeywordInvokable invokable : getInvokedKeywords()) {
-            PsiReference reference = invokable.getReference();
-            if (reference != null) {
-                PsiElement element = reference.resolve();
-                if (element instanceof KeywordDefinition) {
-                    results.putValue(
-                            ((KeywordDefinition) element).getPresentableText(),
-                            invokable
-                    );
-                }
-            }
-        }
-        return results;
-    }
-
-    @NotNull
-    private Collection<Variable> getUsedVariables() {
-        Collection<Variable> results = this.usedVariables;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "used variables");
-            results = collectUsedVariables();
-            this.usedVariables = results;
-            debug.complete();
-        }
-        return results;
-    }
-
-    @NotNull
-    private Collection<Variable> collectUsedVariables() {
-        return PsiTreeUtil.findChildrenOfType(this, Variable.class);
+        return RobotFileResolution.getInstance(getContainingFile()).getKeywordReferences(this, definition);
     }
 
     @NotNull
     @Override
     public Collection<KeywordFile> getImportedFiles() {
-        Collection<KeywordFile> results = this.keywordFiles;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "imported files");
-            results = collectImportFiles();
-            this.keywordFiles = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, IMPORTED_FILES, "imported files", this::collectImportFiles,
+                RobotImportCache.getInstance(getProject()).getModificationTracker());
     }
 
     @NotNull
@@ -360,25 +213,33 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
         Collection<KeywordFile> files = new LinkedHashSet<KeywordFile>();
         addBuiltInImports(files);
         if (containsImports()) {
-            Collection<Import> imports = PsiTreeUtil.findChildrenOfType(this, Import.class);
-            for (Import imp : imports) {
-                Argument argument = PsiTreeUtil.findChildOfType(imp, Argument.class);
-                if (argument != null) {
+            // served from the stubs so imported files do not need to be parsed
+            for (Import imp : getStubOrPsiChildren(RobotStubElementTypes.IMPORT, new Import[0])) {
+                String path = imp.getImportedPath();
+                if (path != null) {
                     if (imp.isResource()) {
-                        PsiElement resolution = resolveImport(argument);
+                        PsiElement resolution = RobotFileManager.findRobot(path, getProject(), imp);
                         if (resolution instanceof KeywordFile) {
                             files.add((KeywordFile) resolution);
                         }
                     } else if (imp.isLibrary() || imp.isVariables()) {
-                        PsiElement resolved = resolveImport(argument);
+                        String namespace = imp.getNamespace();
+                        PsiElement resolved = RobotFileManager.findPython(path, getProject(), imp);
+                        RobotLibdocFile libdoc = imp.isLibrary() ?
+                                RobotLibdocFile.find(path, namespace == null ? path : namespace, resolved, getProject()) : null;
+                        if (libdoc != null) {
+                            // a spec is complete and much cheaper than the python sources
+                            files.add(libdoc);
+                            continue;
+                        }
                         PyClass resolution = PythonResolver.castClass(resolved);
                         if (resolution != null) {
-                            files.add(new RobotPythonClass(getNamespace(imp, argument), resolution,
+                            files.add(new RobotPythonClass(namespace == null ? path : namespace, resolution,
                                     ImportType.getType(imp.getPresentableText())));
                         }
                         PyFile file = PythonResolver.castFile(resolved);
                         if (file != null) {
-                            files.add(new RobotPythonFile(getNamespace(imp, argument), file,
+                            files.add(new RobotPythonFile(namespace == null ? path : namespace, file,
                                     ImportType.getType(imp.getPresentableText())));
                         }
                     }
@@ -388,46 +249,11 @@ public class HeadingImpl extends RobotPsiElementBase implements Heading {
         return files;
     }
 
-    /**
-     * Gets the namespace of the current import.  This looks for the 'WITH NAME' tag else returns the first argument.
-     *
-     * @param imp     the import statement to get the namespace of.
-     * @param library the first argument; aka the default namespace
-     * @return the namespace of the import.
-     */
-    private String getNamespace(Import imp, Argument library) {
-        Argument[] args = PsiTreeUtil.getChildrenOfType(imp, Argument.class);
-        int index = -1;
-        if (args != null) {
-            for (int i = 0; i < args.length; i++) {
-                Argument arg = args[i];
-                if (WITH_NAME.equals(arg.getPresentableText())) {
-                    index = i;
-                    break;
-                }
-            }
-        }
-        String results = library.getPresentableText();
-        if (index > 0 && index + 1 < args.length) {
-            results = args[index + 1].getPresentableText();
-        }
-        return results;
-    }
-
     private void addBuiltInImports(@NotNull Collection<KeywordFile> files) {
-        PyClass builtIn = PythonResolver.findClass(ROBOT_BUILT_IN, getProject());
+        KeywordFile builtIn = RobotBuiltInLibrary.getInstance(getProject()).getBuiltIn();
         if (builtIn != null) {
-            files.add(new RobotPythonClass(ROBOT_BUILT_IN, builtIn, ImportType.LIBRARY));
-        }
-    }
-
-    @Nullable
-    private PsiElement resolveImport(@NotNull Argument argument) {
-        PsiReference reference = argument.getReference();
-        if (reference != null) {
-            return reference.resolve();
+            files.add(builtIn);
         }
-        return null;
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
+import org.jetbrains.annotations.Nullable;
+
 /**
  * @author mrubino
  */
@@ -10,4 +12,16 @@ public interface Import extends RobotStatement {
     boolean isLibrary();
     
     boolean isVariables();
+
+    /**
+     * @return the resource path or library name being imported; the first argument.
+     */
+    @Nullable
+    String getImportedPath();
+
+    /**
+     * @return the name the imported keywords can be prefixed with; either the 'WITH NAME' alias or the imported path.
+     */
+    @Nullable
+    String getNamespace();
 }
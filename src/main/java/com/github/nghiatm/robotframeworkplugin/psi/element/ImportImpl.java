@@ -1,17 +1,33 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
+import com.github.nghiatm.robotframeworkplugin.psi.stub.ImportStub;
 import com.intellij.lang.ASTNode;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * @author mrubino
  */
-public class ImportImpl extends RobotPsiElementBase implements Import {
+public class ImportImpl extends RobotStubPsiElementBase<ImportStub> implements Import {
+
+    private static final String WITH_NAME = "WITH NAME";
 
     public ImportImpl(@NotNull final ASTNode node) {
         super(node);
     }
 
+    public ImportImpl(@NotNull ImportStub stub, @NotNull IStubElementType nodeType) {
+        super(stub, nodeType);
+    }
+
+    @NotNull
+    @Override
+    protected String getPresentableText(@NotNull ImportStub stub) {
+        return stub.getType();
+    }
+
     public boolean isResource() {
         // TODO: better OO
         String text = getPresentableText();
@@ -29,4 +45,46 @@ public class ImportImpl extends RobotPsiElementBase implements Import {
         String text = getPresentableText();
         return text.equals("Library");
     }
-}
\ No newline at end of file
+
+    @Nullable
+    @Override
+    public String getImportedPath() {
+        ImportStub stub = getStub();
+        if (stub != null) {
+            return stub.getPath();
+        }
+        Argument argument = PsiTreeUtil.findChildOfType(this, Argument.class);
+        return argument == null ? null : argument.getPresentableText();
+    }
+
+    /**
+     * Gets the namespace of the current import.  This looks for the 'WITH NAME' tag else returns the first argument.
+     *
+     * @return the namespace of the import.
+     */
+    @Nullable
+    @Override
+    public String getNamespace() {
+        ImportStub stub = getStub();
+        if (stub != null) {
+            return stub.getNamespace();
+        }
+        Argument[] args = PsiTreeUtil.getChildrenOfType(this, Argument.class);
+        if (args == null || args.length == 0) {
+            return null;
+        }
+        int index = -1;
+        for (int i = 0; i < args.length; i++) {
+            Argument arg = args[i];
+            if (WITH_NAME.equals(arg.getPresentableText())) {
+                index = i;
+                break;
+            }
+        }
+        String results = args[0].getPresentableText();
+        if (index > 0 && index + 1 < args.length) {
+            results = args[index + 1].getPresentableText();
+        }
+        return results;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableScope;
 import com.intellij.psi.PsiNamedElement;
 import org.jetbrains.annotations.NotNull;
 
@@ -28,4 +29,10 @@ public interface KeywordDefinition extends RobotStatement, PsiNamedElement {
      * @return true if there are inline variables defined, false otherwise.
      */
     boolean hasInlineVariables();
+
+    /**
+     * @return the locally defined variables of the body ordered by where they are defined.
+     */
+    @NotNull
+    RobotVariableScope getVariableScope();
 }
@@ -1,12 +1,19 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.github.nghiatm.robotframeworkplugin.ide.icons.RobotIcons;
-import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableScope;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.KeywordDefinitionStub;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotCacheUtil;
 import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiNameIdentifierOwner;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
 import org.jetbrains.annotations.NotNull;
@@ -23,32 +30,36 @@ import java.util.regex.Pattern;
 /**
  * @author Stephen Abrams
  */
-public class KeywordDefinitionImpl extends RobotPsiElementBase implements KeywordDefinition, DefinedKeyword, PerformanceEntity, PsiNameIdentifierOwner {
+public class KeywordDefinitionImpl extends RobotStubPsiElementBase<KeywordDefinitionStub> implements KeywordDefinition, DefinedKeyword, PerformanceEntity, PsiNameIdentifierOwner {
 
     private static final Pattern PATTERN = Pattern.compile("(.*?)(\\$\\{.*?\\})(.*)");
     private static final String ANY = ".*?";
     private static final String DOT = ".";
 
-    private Pattern pattern;
-    private List<KeywordInvokable> invokedKeywords;
-    private Collection<DefinedVariable> definedInlineVariables;
-    private Collection<DefinedVariable> definedArguments;
+    private static final Key<CachedValue<List<KeywordInvokable>>> INVOKED_KEYWORDS = Key.create("robot.definition.invoked.keywords");
+    private static final Key<CachedValue<Collection<DefinedVariable>>> INLINE_VARIABLES = Key.create("robot.definition.inline.variables");
+    private static final Key<CachedValue<Collection<DefinedVariable>>> ARGUMENTS = Key.create("robot.definition.arguments");
+    private static final Key<CachedValue<RobotVariableScope>> VARIABLE_SCOPE = Key.create("robot.definition.variable.scope");
+    private static final Key<CachedValue<Pattern>> NAME_PATTERN = Key.create("robot.definition.name.pattern");
 
     public KeywordDefinitionImpl(@NotNull final ASTNode node) {
         super(node);
     }
 
+    public KeywordDefinitionImpl(@NotNull KeywordDefinitionStub stub, @NotNull IStubElementType nodeType) {
+        super(stub, nodeType);
+    }
+
+    @NotNull
+    @Override
+    protected String getPresentableText(@NotNull KeywordDefinitionStub stub) {
+        return stub.getName();
+    }
+
     @NotNull
     @Override
     public List<KeywordInvokable> getInvokedKeywords() {
-        List<KeywordInvokable> results = this.invokedKeywords;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "invoked keywords");
-            results = collectInvokedKeywords();
-            this.invokedKeywords = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, INVOKED_KEYWORDS, "invoked keywords", this::collectInvokedKeywords);
     }
 
     private List<KeywordInvokable> collectInvokedKeywords() {
@@ -76,16 +87,17 @@ public class KeywordDefinitionImpl extends RobotPsiElementBase implements Keywor
         return getInlineVariables().size() > 0;
     }
 
+    @NotNull
+    @Override
+    public RobotVariableScope getVariableScope() {
+        // timed by the scope itself
+        return CachedValuesManager.getCachedValue(this, VARIABLE_SCOPE, () ->
+                CachedValueProvider.Result.create(RobotVariableScope.createLocal(this), RobotCacheUtil.getDependency(this)));
+    }
+
     @NotNull
     private Collection<DefinedVariable> getInlineVariables() {
-        Collection<DefinedVariable> results = this.definedInlineVariables;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "inline variables");
-            results = collectInlineVariables();
-            this.definedInlineVariables = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, INLINE_VARIABLES, "inline variables", this::collectInlineVariables);
     }
 
     @NotNull
@@ -105,14 +117,7 @@ public class KeywordDefinitionImpl extends RobotPsiElementBase implements Keywor
 
     @NotNull
     private Collection<DefinedVariable> getArguments() {
-        Collection<DefinedVariable> results = this.definedArguments;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "arguments");
-            results = determineArguments();
-            this.definedArguments = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, ARGUMENTS, "arguments", this::determineArguments);
     }
 
     @NotNull
@@ -137,36 +142,32 @@ public class KeywordDefinitionImpl extends RobotPsiElementBase implements Keywor
         return results;
     }
 
-    @Override
-    public void subtreeChanged() {
-        super.subtreeChanged();
-        this.definedArguments = null;
-        this.definedInlineVariables = null;
-        this.pattern = null;
-        this.invokedKeywords = null;
-    }
-
     @Override
     public boolean matches(String text) {
         if (text == null) {
             return false;
         }
-        String myText = getPresentableText();
-        Pattern namePattern = this.pattern;
-        if (namePattern == null) {
-            String myNamespace = getNamespace(getContainingFile());
-            namePattern = Pattern.compile(buildPattern(myNamespace, myText.trim()), Pattern.CASE_INSENSITIVE);
-            this.pattern = namePattern;
-        }
-
+        Pattern namePattern = RobotCacheUtil.getCachedValue(this, NAME_PATTERN, "name pattern", this::compilePattern);
         return namePattern.matcher(text.trim()).matches();
     }
 
+    @NotNull
+    private Pattern compilePattern() {
+        String myNamespace = getNamespace(getContainingFile());
+        return Pattern.compile(buildPattern(myNamespace, getPresentableText().trim()), Pattern.CASE_INSENSITIVE);
+    }
+
     @Override
     public PsiElement reference() {
         return this;
     }
 
+    @Nullable
+    @Override
+    public String getNamespace() {
+        return getNamespace(getContainingFile());
+    }
+
     private String getNamespace(@NotNull PsiFile file) {
         VirtualFile virtualFile = file.getVirtualFile();
         if (virtualFile == null) {
@@ -212,6 +213,10 @@ public class KeywordDefinitionImpl extends RobotPsiElementBase implements Keywor
 
     @Override
     public boolean hasArguments() {
+        KeywordDefinitionStub stub = getStub();
+        if (stub != null) {
+            return stub.hasArguments();
+        }
         return !getArguments().isEmpty();
     }
 
@@ -1,6 +1,8 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotKeywordMatcher;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableMatcher;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
@@ -15,9 +17,21 @@ public interface KeywordFile {
 
     @NotNull
     Collection<DefinedKeyword> getDefinedKeywords();
+
+    /**
+     * @return the matcher over {@link #getDefinedKeywords()}.
+     */
+    @NotNull
+    RobotKeywordMatcher getKeywordMatcher();
     
     @NotNull
     Collection<DefinedVariable> getDefinedVariables();
+
+    /**
+     * @return the matcher over {@link #getDefinedVariables()}.
+     */
+    @NotNull
+    RobotVariableMatcher getVariableMatcher();
     
     @NotNull
     ImportType getImportType();
@@ -2,9 +2,11 @@ package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.github.nghiatm.robotframeworkplugin.psi.dto.VariableDto;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
-import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotCacheUtil;
 import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -17,9 +19,9 @@ import java.util.List;
  */
 public class KeywordStatementImpl extends RobotPsiElementBase implements KeywordStatement, PerformanceEntity {
 
-    private List<Argument> arguments;
-    private DefinedVariable variable;
-    private KeywordInvokable invokable;
+    private static final Key<CachedValue<KeywordInvokable>> INVOKABLE = Key.create("robot.statement.invokable");
+    private static final Key<CachedValue<List<Argument>>> ARGUMENTS = Key.create("robot.statement.arguments");
+    private static final Key<CachedValue<DefinedVariable>> GLOBAL_VARIABLE = Key.create("robot.statement.global.variable");
 
     public KeywordStatementImpl(@NotNull ASTNode node) {
         super(node);
@@ -28,14 +30,7 @@ public class KeywordStatementImpl extends RobotPsiElementBase implements Keyword
     @Nullable
     @Override
     public KeywordInvokable getInvokable() {
-        KeywordInvokable result = this.invokable;
-        if (result == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "invokable");
-            result = collectInvokable();
-            this.invokable = result;
-            debug.complete();
-        }
-        return result;
+        return RobotCacheUtil.getCachedValue(this, INVOKABLE, "invokable", this::collectInvokable);
     }
 
     @Nullable
@@ -51,14 +46,7 @@ public class KeywordStatementImpl extends RobotPsiElementBase implements Keyword
     @NotNull
     @Override
     public List<Argument> getArguments() {
-        List<Argument> results = this.arguments;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "arguments");
-            results = collectArguments();
-            this.arguments = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, ARGUMENTS, "arguments", this::collectArguments);
     }
 
     @NotNull
@@ -75,14 +63,7 @@ public class KeywordStatementImpl extends RobotPsiElementBase implements Keyword
     @Nullable
     @Override
     public DefinedVariable getGlobalVariable() {
-        DefinedVariable result = this.variable;
-        if (result == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "global variable");
-            result = collectGlobalVariable();
-            this.variable = result;
-            debug.complete();
-        }
-        return result;
+        return RobotCacheUtil.getCachedValue(this, GLOBAL_VARIABLE, "global variable", this::collectGlobalVariable);
     }
 
     @Nullable
@@ -102,14 +83,6 @@ public class KeywordStatementImpl extends RobotPsiElementBase implements Keyword
         return null;
     }
 
-    @Override
-    public void subtreeChanged() {
-        super.subtreeChanged();
-        this.arguments = null;
-        this.invokable = null;
-        this.variable = null;
-    }
-
     @NotNull
     @Override
     public String getDebugText() {
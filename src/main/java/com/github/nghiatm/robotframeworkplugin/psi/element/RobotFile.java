@@ -1,5 +1,7 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotKeywordMatcher;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableMatcher;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -17,6 +19,12 @@ public interface RobotFile extends PsiFile {
     @NotNull
     Collection<DefinedKeyword> getDefinedKeywords();
 
+    /**
+     * @return the matcher over the locally defined keywords.
+     */
+    @NotNull
+    RobotKeywordMatcher getKeywordMatcher();
+
     /**
      * @return all files that contain references to invoked keywords and used variables.
      */
@@ -34,9 +42,21 @@ public interface RobotFile extends PsiFile {
 
     @NotNull
     Collection<DefinedVariable> getDefinedVariables();
+
+    /**
+     * @return the matcher over {@link #getDefinedVariables()}.
+     */
+    @NotNull
+    RobotVariableMatcher getVariableMatcher();
     
     void importsChanged();
 
+    /**
+     * @return the headings of the file in the order they appear.
+     */
+    @NotNull
+    Collection<Heading> getHeadings();
+
     @NotNull
     Collection<KeywordInvokable> getKeywordReferences(@Nullable KeywordDefinition definition);
 }
@@ -3,18 +3,28 @@ package com.github.nghiatm.robotframeworkplugin.psi.element;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
 import com.github.nghiatm.robotframeworkplugin.psi.RobotLanguage;
 import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
-import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotFileResolution;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotImportGraph;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotKeywordMatcher;
+import com.github.nghiatm.robotframeworkplugin.psi.ref.RobotVariableMatcher;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.RobotStubElementTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotCacheUtil;
 import com.intellij.extapi.psi.PsiFileBase;
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.FileViewProvider;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 
 /**
@@ -22,7 +32,6 @@ import java.util.LinkedHashSet;
  */
 public class RobotFileImpl extends PsiFileBase implements RobotFile, KeywordFile, PerformanceEntity {
 
-    private Collection<Heading> headings;
 
     public RobotFileImpl(FileViewProvider viewProvider) {
         super(viewProvider, RobotLanguage.INSTANCE);
@@ -34,12 +43,6 @@ public class RobotFileImpl extends PsiFileBase implements RobotFile, KeywordFile
         return RobotFeatureFileType.getInstance();
     }
 
-    @Override
-    public void subtreeChanged() {
-        super.subtreeChanged();
-        this.headings = null;
-    }
-
     @NotNull
     @Override
     public Collection<DefinedVariable> getDefinedVariables() {
@@ -50,6 +53,13 @@ public class RobotFileImpl extends PsiFileBase implements RobotFile, KeywordFile
         return results;
     }
 
+    @NotNull
+    @Override
+    public RobotVariableMatcher getVariableMatcher() {
+        return CachedValuesManager.getCachedValue(this, () ->
+                CachedValueProvider.Result.create(new RobotVariableMatcher(getDefinedVariables()), this));
+    }
+
     @NotNull
     @Override
     public ImportType getImportType() {
@@ -68,68 +78,50 @@ public class RobotFileImpl extends PsiFileBase implements RobotFile, KeywordFile
 
     @NotNull
     @Override
-    public Collection<PsiFile> getFilesFromInvokedKeywordsAndVariables() {
-        Collection<PsiFile> results = new HashSet<PsiFile>();
-        for (Heading heading : getHeadings()) {
-            results.addAll(heading.getFilesFromInvokedKeywordsAndVariables());
-        }
-        return results;
+    public RobotKeywordMatcher getKeywordMatcher() {
+        return CachedValuesManager.getCachedValue(this, () ->
+                CachedValueProvider.Result.create(new RobotKeywordMatcher(getDefinedKeywords()), this));
     }
 
     @NotNull
     @Override
-    public Collection<KeywordFile> getImportedFiles(boolean includeTransitive) {
-        Collection<KeywordFile> results = new LinkedHashSet<KeywordFile>();
-        for (Heading heading : getHeadings()) {
-            for (KeywordFile file : heading.getImportedFiles()) {
-                addKeywordFiles(results, file, includeTransitive);
-            }
-        }
-        return results;
+    public Collection<PsiFile> getFilesFromInvokedKeywordsAndVariables() {
+        return RobotFileResolution.getInstance(this).getReferencedFiles(this);
     }
 
-    private void addKeywordFiles(Collection<KeywordFile> files, KeywordFile current, boolean includeTransitive) {
-        if (files.add(current)) {
-            if (includeTransitive) {
-                for (KeywordFile file : current.getImportedFiles(false)) {
-                    addKeywordFiles(files, file, true);
-                }
-            }
-        }
+    @NotNull
+    @Override
+    public Collection<KeywordFile> getImportedFiles(boolean includeTransitive) {
+        return RobotImportGraph.getInstance(getProject()).getImportedFiles(this, includeTransitive);
     }
 
     @Override
     public void importsChanged() {
-        for (Heading heading : getHeadings()) {
-            heading.importsChanged();
-        }
+        // the headings cache their imports until the file changes; only the graph spans files
+        RobotImportGraph.getInstance(getProject()).importsChanged(this);
     }
 
     @NotNull
     @Override
     public Collection<KeywordInvokable> getKeywordReferences(@Nullable KeywordDefinition definition) {
-        Collection<KeywordInvokable> results = new LinkedHashSet<KeywordInvokable>();
-        for (Heading heading : getHeadings()) {
-            results.addAll(heading.getKeywordReferences(definition));
-        }
-        return results;
+        return RobotFileResolution.getInstance(this).getKeywordReferences(this, definition);
     }
 
     @NotNull
+    @Override
     public Collection<Heading> getHeadings() {
-        Collection<Heading> results = this.headings;
-        if (results == null) {
-            PerformanceCollector debug = new PerformanceCollector(this, "headings");
-            results = collectHeadings();
-            this.headings = results;
-            debug.complete();
-        }
-        return results;
+        return RobotCacheUtil.getCachedValue(this, HEADINGS, "headings", this::collectHeadings);
     }
 
     @NotNull
     private Collection<Heading> collectHeadings() {
         Collection<Heading> results = new LinkedHashSet<Heading>();
+        StubElement<?> stub = getStub();
+        if (stub != null) {
+            // the file has not been parsed; read the headings from the stub tree
+            Collections.addAll(results, stub.getChildrenByType(RobotStubElementTypes.HEADING, new Heading[0]));
+            return results;
+        }
         for (PsiElement child : getChildren()) {
             if (child instanceof Heading) {
                 results.add((Heading) child);
@@ -5,6 +5,7 @@ import com.intellij.extapi.psi.ASTWrapperPsiElement;
 import com.intellij.lang.ASTNode;
 import com.intellij.navigation.ItemPresentation;
 import com.intellij.openapi.util.Iconable;
+import com.intellij.openapi.util.ModificationTracker;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.IncorrectOperationException;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
@@ -15,7 +16,9 @@ import javax.swing.*;
 /**
  * @author Stephen Abrams
  */
-public abstract class RobotPsiElementBase extends ASTWrapperPsiElement implements PerformanceEntity, RobotStatement {
+public abstract class RobotPsiElementBase extends ASTWrapperPsiElement implements PerformanceEntity, RobotStatement, ModificationTracker {
+
+    private volatile long modificationCount;
 
     public RobotPsiElementBase(@NotNull final ASTNode node) {
         super(node);
@@ -49,6 +52,21 @@ public abstract class RobotPsiElementBase extends ASTWrapperPsiElement implement
         return toPresentableText(getNode());
     }
 
+    /**
+     * @return the number of changes within this element; the caches of the element depend on it.
+     */
+    @Override
+    public long getModificationCount() {
+        return this.modificationCount;
+    }
+
+    @Override
+    public void subtreeChanged() {
+        super.subtreeChanged();
+        // only ever written within write actions
+        this.modificationCount++;
+    }
+
     @NotNull
     @Override
     public String getDebugFileName() {
@@ -0,0 +1,104 @@
+package com.github.nghiatm.robotframeworkplugin.psi.element;
+
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
+import com.intellij.extapi.psi.StubBasedPsiElementBase;
+import com.intellij.lang.ASTNode;
+import com.intellij.navigation.ItemPresentation;
+import com.intellij.openapi.util.Iconable;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.util.IncorrectOperationException;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+
+/**
+ * The stub backed counterpart of {@link RobotPsiElementBase}; the presentable text is served from the stub
+ * when the file has not been parsed.
+ */
+public abstract class RobotStubPsiElementBase<T extends StubElement<?>> extends StubBasedPsiElementBase<T> implements PerformanceEntity, RobotStatement, ModificationTracker {
+
+    private volatile long modificationCount;
+
+    public RobotStubPsiElementBase(@NotNull final ASTNode node) {
+        super(node);
+    }
+
+    public RobotStubPsiElementBase(@NotNull T stub, @NotNull IStubElementType nodeType) {
+        super(stub, nodeType);
+    }
+
+    /**
+     * @param stub the stub of this element.
+     * @return the presentable text as it was stored in the stub.
+     */
+    @NotNull
+    protected abstract String getPresentableText(@NotNull T stub);
+
+    @Override
+    public ItemPresentation getPresentation() {
+        return new ItemPresentation() {
+            public String getPresentableText() {
+                return RobotStubPsiElementBase.this.getPresentableText();
+            }
+
+            public String getLocationString() {
+                return null;
+            }
+
+            public Icon getIcon(final boolean open) {
+                return RobotStubPsiElementBase.this.getIcon(Iconable.ICON_FLAG_VISIBILITY);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableText() {
+        T stub = getStub();
+        if (stub != null) {
+            return getPresentableText(stub);
+        }
+        return PatternUtil.getPresentableText(getNode().getText());
+    }
+
+    /**
+     * @return the number of changes within this element; the caches of the element depend on it.
+     */
+    @Override
+    public long getModificationCount() {
+        return this.modificationCount;
+    }
+
+    @Override
+    public void subtreeChanged() {
+        super.subtreeChanged();
+        // only ever written within write actions
+        this.modificationCount++;
+    }
+
+    @NotNull
+    @Override
+    public String getDebugFileName() {
+        return getContainingFile().getVirtualFile().getName();
+    }
+
+    @NotNull
+    @Override
+    public String getDebugText() {
+        return getPresentableText();
+    }
+
+    @NotNull
+    public String getName() {
+        return getPresentableText();
+    }
+
+    public PsiElement setName(@NotNull String var1) throws IncorrectOperationException {
+        // TODO: for renaming an element
+        return this;
+    }
+}
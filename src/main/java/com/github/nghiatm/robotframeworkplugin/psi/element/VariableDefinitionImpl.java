@@ -1,11 +1,16 @@
 package com.github.nghiatm.robotframeworkplugin.psi.element;
 
 import com.github.nghiatm.robotframeworkplugin.ide.icons.RobotIcons;
+import com.github.nghiatm.robotframeworkplugin.psi.stub.VariableDefinitionStub;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.github.nghiatm.robotframeworkplugin.psi.util.RobotCacheUtil;
 import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiNameIdentifierOwner;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -16,18 +21,22 @@ import java.util.regex.Pattern;
 /**
  * @author mrubino
  */
-public class VariableDefinitionImpl extends RobotPsiElementBase implements VariableDefinition, DefinedVariable, PsiNameIdentifierOwner {
+public class VariableDefinitionImpl extends RobotStubPsiElementBase<VariableDefinitionStub> implements VariableDefinition, DefinedVariable, PsiNameIdentifierOwner {
 
-    private Pattern pattern;
+    private static final Key<CachedValue<Pattern>> NAME_PATTERN = Key.create("robot.variable.name.pattern");
 
     public VariableDefinitionImpl(@NotNull final ASTNode node) {
         super(node);
     }
 
+    public VariableDefinitionImpl(@NotNull VariableDefinitionStub stub, @NotNull IStubElementType nodeType) {
+        super(stub, nodeType);
+    }
+
+    @NotNull
     @Override
-    public void subtreeChanged() {
-        super.subtreeChanged();
-        this.pattern = null;
+    protected String getPresentableText(@NotNull VariableDefinitionStub stub) {
+        return stub.getName();
     }
 
     @Override
@@ -35,15 +44,15 @@ public class VariableDefinitionImpl extends RobotPsiElementBase implements Varia
         if (text == null) {
             return false;
         }
-        String myText = getPresentableText();
-        Pattern pattern = this.pattern;
-        if (pattern == null) {
-            pattern = Pattern.compile(PatternUtil.getVariablePattern(myText), Pattern.CASE_INSENSITIVE);
-            this.pattern = pattern;
-        }
+        Pattern pattern = RobotCacheUtil.getCachedValue(this, NAME_PATTERN, "name pattern", this::compilePattern);
         return pattern.matcher(text).matches();
     }
 
+    @NotNull
+    private Pattern compilePattern() {
+        return Pattern.compile(PatternUtil.getVariablePattern(getPresentableText()), Pattern.CASE_INSENSITIVE);
+    }
+
     @Override
     public boolean isInScope(@Nullable PsiElement position) {
         return true;
@@ -58,7 +67,8 @@ public class VariableDefinitionImpl extends RobotPsiElementBase implements Varia
     @Nullable
     @Override
     public String getLookup() {
-        return getText();
+        VariableDefinitionStub stub = getStub();
+        return stub != null ? stub.getName() : getText();
     }
 
     @Override
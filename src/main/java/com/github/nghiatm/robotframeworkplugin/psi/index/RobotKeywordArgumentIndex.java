@@ -0,0 +1,88 @@
+package com.github.nghiatm.robotframeworkplugin.psi.index;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLexer;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotResourceFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.ScalarIndexExtension;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lists the normalized arguments of keyword invocations in robot files, as they may name a keyword to run.
+ * <p>
+ * Kept apart from the {@link RobotKeywordUsageIndex} so the many arguments that are plain data do not end up
+ * among the invocation counts.
+ */
+public class RobotKeywordArgumentIndex extends ScalarIndexExtension<String> {
+
+    public static final ID<String, Void> NAME = ID.create("robot.keyword.arguments");
+
+    private static final int VERSION = 1;
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return inputData -> collectArguments(inputData.getContentAsText());
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(RobotFeatureFileType.getInstance(), RobotResourceFileType.getInstance());
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @NotNull
+    private static Map<String, Void> collectArguments(@NotNull CharSequence text) {
+        Map<String, Void> results = new HashMap<String, Void>();
+        RobotLexer lexer = new RobotLexer(RobotKeywordProvider.getInstance());
+        lexer.start(text);
+        while (lexer.getTokenType() != null) {
+            if (lexer.getTokenType() == RobotTokenTypes.ARGUMENT) {
+                String key = PatternUtil.normalizeKeyword(text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString().trim());
+                if (!key.isEmpty()) {
+                    results.put(key, null);
+                    String simpleName = RobotKeywordUsageIndex.getSimpleName(key);
+                    if (simpleName != null) {
+                        results.put(simpleName, null);
+                    }
+                }
+            }
+            lexer.advance();
+        }
+        return results;
+    }
+}
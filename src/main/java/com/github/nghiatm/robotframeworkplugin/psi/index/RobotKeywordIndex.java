@@ -0,0 +1,164 @@
+package com.github.nghiatm.robotframeworkplugin.psi.index;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLexer;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotResourceFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps normalized keyword names to the offset of their definition in robot files.
+ * <p>
+ * Keywords with embedded arguments can not be looked up by name so they are all stored under a single key;
+ * files containing one are always considered a candidate.
+ */
+public class RobotKeywordIndex extends FileBasedIndexExtension<String, Integer> {
+
+    public static final ID<String, Integer> NAME = ID.create("robot.keyword.definitions");
+
+    private static final String EMBEDDED = "${}";
+    private static final String KEYWORD = "keyword";
+    private static final char DOT = '.';
+    private static final int VERSION = 1;
+
+    @NotNull
+    @Override
+    public ID<String, Integer> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Integer, FileContent> getIndexer() {
+        return inputData -> collectDefinitions(inputData.getContentAsText());
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Integer> getValueExternalizer() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(RobotFeatureFileType.getInstance(), RobotResourceFileType.getInstance());
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Finds the files that might define the given keyword.
+     *
+     * @param keywordText the keyword as it is invoked; possibly prefixed with a namespace.
+     * @param project     the project to look in.
+     * @return the candidate files or null if the index is not available.
+     */
+    @Nullable
+    public static Set<VirtualFile> getCandidateFiles(@NotNull String keywordText, @NotNull Project project) {
+        if (DumbService.isDumb(project)) {
+            return null;
+        }
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        Set<VirtualFile> results = new HashSet<VirtualFile>();
+        String text = keywordText.trim();
+        results.addAll(index.getContainingFiles(NAME, PatternUtil.normalizeKeyword(text), scope));
+        int dot = text.lastIndexOf(DOT);
+        if (dot >= 0) {
+            results.addAll(index.getContainingFiles(NAME, PatternUtil.normalizeKeyword(text.substring(dot + 1)), scope));
+        }
+        results.addAll(index.getContainingFiles(NAME, EMBEDDED, scope));
+        return results;
+    }
+
+    @NotNull
+    private static Map<String, Integer> collectDefinitions(@NotNull CharSequence text) {
+        Map<String, Integer> results = new HashMap<String, Integer>();
+        RobotLexer lexer = new RobotLexer(RobotKeywordProvider.getInstance());
+        lexer.start(text);
+
+        boolean inKeywords = false;
+        StringBuilder name = null;
+        boolean embedded = false;
+        int nameStart = 0;
+        int nameEnd = 0;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            int start = lexer.getTokenStart();
+            if (name != null && (start != nameEnd || !isDefinitionPart(type))) {
+                addDefinition(results, name.toString(), embedded, nameStart);
+                name = null;
+            }
+            if (type == RobotTokenTypes.HEADING) {
+                inKeywords = StringUtil.containsIgnoreCase(text.subSequence(start, lexer.getTokenEnd()).toString(), KEYWORD);
+            } else if (inKeywords && isDefinitionPart(type)) {
+                if (name == null && (start == 0 || text.charAt(start - 1) == '\n')) {
+                    name = new StringBuilder();
+                    embedded = false;
+                    nameStart = start;
+                }
+                if (name != null) {
+                    name.append(text, start, lexer.getTokenEnd());
+                    embedded |= type == RobotTokenTypes.VARIABLE_DEFINITION;
+                    nameEnd = lexer.getTokenEnd();
+                }
+            }
+            lexer.advance();
+        }
+        if (name != null) {
+            addDefinition(results, name.toString(), embedded, nameStart);
+        }
+        return results;
+    }
+
+    private static boolean isDefinitionPart(@NotNull IElementType type) {
+        return type == RobotTokenTypes.KEYWORD_DEFINITION || type == RobotTokenTypes.VARIABLE_DEFINITION;
+    }
+
+    private static void addDefinition(@NotNull Map<String, Integer> results, @NotNull String name, boolean embedded,
+                                      int offset) {
+        String key = embedded ? EMBEDDED : PatternUtil.normalizeKeyword(name.trim());
+        if (!key.isEmpty() && !results.containsKey(key)) {
+            results.put(key, offset);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.nghiatm.robotframeworkplugin.psi.index;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotResourceFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How often keywords are invoked across the project, summed from the {@link RobotKeywordUsageIndex}.
+ * <p>
+ * The totals of all keywords are summed in one pass over the index in the background. When a robot file changes
+ * on disk or the project roots change the totals are summed again, while the previous ones keep being served; no
+ * totals are known before the first pass finishes. The ranking they feed does not need to be exact.
+ */
+public class RobotKeywordStatistics implements Disposable {
+
+    private final Project project;
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final AtomicBoolean collecting = new AtomicBoolean();
+    private volatile Map<String, Integer> counts = Collections.emptyMap();
+    private volatile long countsModificationCount = -1;
+
+    public RobotKeywordStatistics(@NotNull Project project) {
+        this.project = project;
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    VirtualFile file = event.getFile();
+                    if (file == null || file.isDirectory() || isRobot(file.getFileType())) {
+                        outdated();
+                        return;
+                    }
+                }
+            }
+        });
+        connection.subscribe(ModuleRootListener.TOPIC, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                outdated();
+            }
+        });
+    }
+
+    public static RobotKeywordStatistics getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RobotKeywordStatistics.class);
+    }
+
+    /**
+     * @param keyword the keyword name; possibly prefixed with the library or resource it comes from.
+     * @return the number of invocations in the project; 0 while indexing or before the totals are summed.
+     */
+    public static int getUsageCount(@NotNull String keyword, @NotNull Project project) {
+        if (DumbService.isDumb(project)) {
+            return 0;
+        }
+        Integer result = getInstance(project).getCounts().get(PatternUtil.normalizeKeyword(keyword.trim()));
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * Sums the totals again the next time they are asked for; the current ones are served until then.
+     */
+    public void outdated() {
+        this.modificationCount.incrementAndGet();
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @NotNull
+    private Map<String, Integer> getCounts() {
+        long modificationCount = this.modificationCount.get();
+        if (this.countsModificationCount != modificationCount && this.collecting.compareAndSet(false, true)) {
+            // summing visits the whole index, so nobody waits for it
+            ReadAction.nonBlocking(this::collectCounts)
+                    .inSmartMode(this.project)
+                    .expireWith(this)
+                    .submit(AppExecutorUtil.getAppExecutorService())
+                    .onSuccess(result -> {
+                        this.counts = result;
+                        this.countsModificationCount = modificationCount;
+                        this.collecting.set(false);
+                    })
+                    .onError(error -> this.collecting.set(false));
+        }
+        return this.counts;
+    }
+
+    @NotNull
+    private Map<String, Integer> collectCounts() {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(this.project);
+        List<String> keys = new ArrayList<String>();
+        index.processAllKeys(RobotKeywordUsageIndex.NAME, key -> {
+            ProgressManager.checkCanceled();
+            keys.add(key);
+            return true;
+        }, scope, null);
+        Map<String, Integer> results = new HashMap<String, Integer>(keys.size());
+        for (String key : keys) {
+            ProgressManager.checkCanceled();
+            int[] count = {0};
+            index.processValues(RobotKeywordUsageIndex.NAME, key, null, (file, value) -> {
+                count[0] += value;
+                return true;
+            }, scope);
+            if (count[0] > 0) {
+                results.put(key, count[0]);
+            }
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static boolean isRobot(@NotNull FileType type) {
+        return type == RobotFeatureFileType.getInstance() || type == RobotResourceFileType.getInstance();
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.nghiatm.robotframeworkplugin.psi.index;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotFeatureFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLexer;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotResourceFileType;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps normalized names of invoked keywords to the number of invocations in robot files.
+ * <p>
+ * Invocations with a namespace are counted under the full name and under the name without the namespace.
+ * Arguments, which may name a keyword to run, are kept apart in the {@link RobotKeywordArgumentIndex}.
+ */
+public class RobotKeywordUsageIndex extends FileBasedIndexExtension<String, Integer> {
+
+    public static final ID<String, Integer> NAME = ID.create("robot.keyword.usages");
+
+    private static final char DOT = '.';
+    private static final int VERSION = 3;
+
+    @NotNull
+    @Override
+    public ID<String, Integer> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Integer, FileContent> getIndexer() {
+        return inputData -> collectUsages(inputData.getContentAsText());
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Integer> getValueExternalizer() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(RobotFeatureFileType.getInstance(), RobotResourceFileType.getInstance());
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * @param keyword the normalized keyword name, without a namespace; ie 'openbrowser'.
+     * @param scope   the files to look in.
+     * @return the files invoking the keyword or passing its name as an argument.
+     */
+    @NotNull
+    public static Collection<VirtualFile> getFilesInvoking(@NotNull String keyword, @NotNull GlobalSearchScope scope) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        Set<VirtualFile> results = new HashSet<VirtualFile>(index.getContainingFiles(NAME, keyword, scope));
+        results.addAll(index.getContainingFiles(RobotKeywordArgumentIndex.NAME, keyword, scope));
+        return results;
+    }
+
+    /**
+     * Finds the files that may invoke a keyword with embedded arguments; the fragments are matched against the
+     * indexed names, so only the files invoking a matching keyword have to be resolved.
+     *
+     * @param fragments the normalized literal parts of the keyword name, in order.
+     * @param scope     the files to look in.
+     * @return the files invoking a keyword whose name contains every fragment in order.
+     */
+    @NotNull
+    public static Collection<VirtualFile> getFilesInvoking(@NotNull List<String> fragments, @NotNull GlobalSearchScope scope) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        List<String> keys = new ArrayList<String>();
+        index.processAllKeys(NAME, key -> {
+            ProgressManager.checkCanceled();
+            if (PatternUtil.containsFragments(key, fragments)) {
+                keys.add(key);
+            }
+            return true;
+        }, scope, null);
+        Set<VirtualFile> results = new HashSet<VirtualFile>();
+        for (String key : keys) {
+            ProgressManager.checkCanceled();
+            results.addAll(index.getContainingFiles(NAME, key, scope));
+        }
+        return results;
+    }
+
+    @NotNull
+    private static Map<String, Integer> collectUsages(@NotNull CharSequence text) {
+        Map<String, Integer> results = new HashMap<String, Integer>();
+        RobotLexer lexer = new RobotLexer(RobotKeywordProvider.getInstance());
+        lexer.start(text);
+
+        StringBuilder name = null;
+        int nameEnd = 0;
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            int start = lexer.getTokenStart();
+            if (name != null && (start != nameEnd || !isInvocationPart(type))) {
+                addUsage(results, name.toString());
+                name = null;
+            }
+            // embedded arguments split the keyword into keyword and variable tokens
+            if (name == null && type == RobotTokenTypes.KEYWORD) {
+                name = new StringBuilder();
+            }
+            if (name != null) {
+                name.append(text, start, lexer.getTokenEnd());
+                nameEnd = lexer.getTokenEnd();
+            }
+            lexer.advance();
+        }
+        if (name != null) {
+            addUsage(results, name.toString());
+        }
+        return results;
+    }
+
+    private static boolean isInvocationPart(@NotNull IElementType type) {
+        return type == RobotTokenTypes.KEYWORD || type == RobotTokenTypes.VARIABLE;
+    }
+
+    private static void addUsage(@NotNull Map<String, Integer> results, @NotNull String name) {
+        String key = PatternUtil.normalizeKeyword(name.trim());
+        if (key.isEmpty()) {
+            return;
+        }
+        results.merge(key, 1, Integer::sum);
+        String simpleName = getSimpleName(key);
+        if (simpleName != null) {
+            results.merge(simpleName, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @param key the normalized keyword name.
+     * @return the name without its namespace; null if it has none.
+     */
+    @Nullable
+    static String getSimpleName(@NotNull String key) {
+        int dot = key.lastIndexOf(DOT);
+        return dot > 0 && dot < key.length() - 1 ? key.substring(dot + 1) : null;
+    }
+}
@@ -6,22 +6,20 @@ import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordInvokable;
-import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordStatement;
 import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
 import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinition;
-
+import com.github.nghiatm.robotframeworkplugin.psi.index.RobotKeywordIndex;
 import com.github.nghiatm.robotframeworkplugin.psi.util.LogUtil;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
 
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -45,20 +43,27 @@ public class ResolverUtils {
         }
         RobotFile robotFile = (RobotFile) file;
 //        LogUtil.debug("Find ["+keywordText+"] in same file", "ResolverUtils", "resolveKeywordFromFile", file.getProject());
-        for (DefinedKeyword keyword : robotFile.getDefinedKeywords()) {
-            if (keyword.matches(keywordText)) {
-                return keyword.reference();
-            }
+        DefinedKeyword local = robotFile.getKeywordMatcher().find(keywordText);
+        if (local != null) {
+            return local.reference();
         }
         boolean includeTransitive = RobotOptionsProvider.getInstance(file.getProject()).allowTransitiveImports();
         Set<KeywordFile> importFiles = robotFile.getImportedFiles(includeTransitive).stream().collect(Collectors.toSet());
 //        LogUtil.debug("Find ["+keywordText+"] in imported files: " + importFilesSet, "ResolverUtils", "resolveKeywordFromFile", file.getProject());
+        // robot files that do not define anything by this name can be skipped without loading their keywords
+        Set<VirtualFile> candidates = RobotKeywordIndex.getCandidateFiles(keywordText, file.getProject());
+        GlobalSearchScope indexed = GlobalSearchScope.allScope(file.getProject());
         for (KeywordFile imported : importFiles) {
-            for (DefinedKeyword keyword : imported.getDefinedKeywords()) {
-                if (keyword.matches(keywordText)) {
-                    return keyword.reference();
+            if (candidates != null && imported instanceof RobotFile) {
+                VirtualFile virtualFile = ((RobotFile) imported).getVirtualFile();
+                if (virtualFile != null && indexed.contains(virtualFile) && !candidates.contains(virtualFile)) {
+                    continue;
                 }
             }
+            DefinedKeyword keyword = imported.getKeywordMatcher().find(keywordText);
+            if (keyword != null) {
+                return keyword.reference();
+            }
         }
         return null;
     }
@@ -73,17 +78,15 @@ public class ResolverUtils {
             return null;
         }
         RobotFile robotFile = (RobotFile) file;
-        for (DefinedVariable variable : robotFile.getDefinedVariables()) {
-            if (variable.matches(variableText)) {
-                return variable.reference();
-            }
+        DefinedVariable local = robotFile.getVariableMatcher().find(variableText);
+        if (local != null) {
+            return local.reference();
         }
         boolean includeTransitive = RobotOptionsProvider.getInstance(file.getProject()).allowTransitiveImports();
         for (KeywordFile imported : robotFile.getImportedFiles(includeTransitive)) {
-            for (DefinedVariable variable : imported.getDefinedVariables()) {
-                if (variable.matches(variableText)) {
-                    return variable.reference();
-                }
+            DefinedVariable variable = imported.getVariableMatcher().find(variableText);
+            if (variable != null) {
+                return variable.reference();
             }
         }
         // TODO: __init__ files...
@@ -107,79 +110,21 @@ public class ResolverUtils {
             containingStatement = containingStatement.getParent();
         }
         if (containingStatement instanceof KeywordDefinition) {
-            // we want to go backwards to get the latest setter
-            PsiElement[] children = containingStatement.getChildren();
-            boolean seenParent = false;
-            for (int i = children.length - 1; i >= 0; i--) {
-                PsiElement child = children[i];
-                // skip everything until we go past ourselves
-                if (child == parent) {
-                    seenParent = true;
-                    continue;
-                }
-                if (!seenParent) {
-                    continue;
-                }
-                // now start checking for definitions
-                if (child instanceof DefinedVariable) {
-                    // ${x}  some keyword results
-                    if (((DefinedVariable) child).matches(variableText)) {
-                        return child;
-                    }
-                } else if (child instanceof KeywordStatement) {
-                    PsiElement reference = allowGlobalVariables ? walkKeyword((KeywordStatement) child, variableText) : null;
-                    if (reference != null) {
-                        return reference;
-                    }
-                }
-            }
-            for (DefinedVariable variable : ((KeywordDefinition) containingStatement).getDeclaredVariables()) {
-                if (variable.matches(variableText)) {
-                    return variable.reference();
+            // we want the latest setter before ourselves
+            KeywordDefinition definition = (KeywordDefinition) containingStatement;
+            int offset = parent.getStartOffsetInParent();
+            RobotVariableScope local = definition.getVariableScope();
+            int index = local.find(variableText, offset);
+            if (allowGlobalVariables) {
+                // set test variable  ${x}  ${y}; either directly or within an invoked keyword
+                RobotVariableScope global = RobotVariableScope.getGlobal(definition);
+                int globalIndex = global.find(variableText, offset);
+                if (globalIndex >= 0 && (index < 0 || global.getOffset(globalIndex) > local.getOffset(index))) {
+                    return global.getVariable(globalIndex).reference();
                 }
             }
-        }
-        return null;
-    }
-
-    /**
-     * Walks the keyword tree looking for global variable setting keywords.
-     * This only includes variables that are set in this manner as everything else
-     * is out of scope.
-     *
-     * @param statement            the keyword statement to find a variable in.
-     * @param text                 the variable text we are looking for.
-     * @return the matching definition if it exists; null otherwise.
-     */
-    @Nullable
-    private static PsiElement walkKeyword(@Nullable KeywordStatement statement, String text) {
-        if (statement == null) {
-            return null;
-        }
-        // set test variable  ${x}  ${y}
-        DefinedVariable variable = statement.getGlobalVariable();
-        if (variable != null && variable.matches(text)) {
-            return variable.reference();
-        } else {
-            KeywordInvokable invokable = statement.getInvokable();
-            if (invokable != null) {
-                PsiReference reference = invokable.getReference();
-                if (reference != null) {
-                    PsiElement resolved = reference.resolve();
-                    if (resolved instanceof KeywordDefinition) {
-                        List<KeywordInvokable> keywords = ((KeywordDefinition) resolved).getInvokedKeywords();
-                        Collections.reverse(keywords);
-                        for (KeywordInvokable invoked : keywords) {
-                            PsiElement parent = invoked.getParent();
-                            if (parent instanceof KeywordStatement) {
-                                PsiElement result = walkKeyword((KeywordStatement) parent, text);
-                                if (result != null) {
-                                    return result;
-                                }
-                            }
-                        }
-                    }
-                }
+            if (index >= 0) {
+                return local.getVariable(index).reference();
             }
         }
         return null;
@@ -4,6 +4,7 @@ import com.github.nghiatm.robotframeworkplugin.psi.element.Argument;
 import com.github.nghiatm.robotframeworkplugin.psi.element.Import;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordStatement;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReferenceBase;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
@@ -22,9 +23,18 @@ public class RobotArgumentReference extends PsiReferenceBase<Argument> {
     @Nullable
     @Override
     public PsiElement resolve() {
+        PsiFile file = getElement().getContainingFile();
+        if (file == null) {
+            return resolveArgument();
+        }
+        return RobotFileResolution.getInstance(file).resolve(getElement(), element -> resolveArgument());
+    }
+
+    @Nullable
+    private PsiElement resolveArgument() {
         PsiElement parent = getElement().getParent();
         // TODO: potentially unsafe cast
-        PerformanceCollector debug = new PerformanceCollector((PerformanceEntity) getElement(), "resolve");
+        PerformanceCollector debug = PerformanceCollector.start((PerformanceEntity) getElement(), "resolve");
         PsiElement result = null;
         // we only want to attempt to resolve a resource/library for the first argument
         if (parent instanceof Import) {
@@ -56,7 +66,8 @@ public class RobotArgumentReference extends PsiReferenceBase<Argument> {
         Argument element = getElement();
         String keyword = element.getPresentableText();
         // all files we import are based off the file we are currently in
-        return ResolverUtils.resolveKeywordFromFile(keyword, element.getContainingFile());
+        PsiFile file = element.getContainingFile();
+        return file == null ? null : RobotFileResolution.getInstance(file).resolveKeyword(keyword);
     }
 
     @Nullable
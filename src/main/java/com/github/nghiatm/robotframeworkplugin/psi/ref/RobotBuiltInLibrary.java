@@ -0,0 +1,144 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
+import com.github.nghiatm.robotframeworkplugin.psi.dto.VariableDto;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
+import com.github.nghiatm.robotframeworkplugin.psi.util.ReservedVariable;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.messages.MessageBusConnection;
+import com.jetbrains.python.psi.PyClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves the implicitly imported BuiltIn library and the built-in variables once per project, rather than on
+ * every rebuild of the imports of a heading.
+ * <p>
+ * Nothing is kept while indexing as the python classes can not be found then. Everything is resolved again
+ * when indexing finishes or the roots, including the python SDK, change.
+ */
+public class RobotBuiltInLibrary implements Disposable {
+
+    public static final String ROBOT_BUILT_IN = "BuiltIn";
+
+    private final Project project;
+    private volatile State state;
+
+    public RobotBuiltInLibrary(@NotNull Project project) {
+        this.project = project;
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(ModuleRootListener.TOPIC, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                clear();
+            }
+        });
+        connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+            @Override
+            public void exitDumbMode() {
+                clear();
+            }
+        });
+    }
+
+    public static RobotBuiltInLibrary getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RobotBuiltInLibrary.class);
+    }
+
+    /**
+     * @return the BuiltIn library, shared by all importing files; null if it can not be found.
+     */
+    @Nullable
+    public KeywordFile getBuiltIn() {
+        return getState().builtIn;
+    }
+
+    /**
+     * @return the variables robot defines for every file.
+     */
+    @NotNull
+    public Collection<DefinedVariable> getBuiltInVariables() {
+        return getState().variables;
+    }
+
+    public void clear() {
+        this.state = null;
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+
+    @NotNull
+    private State getState() {
+        State result = this.state;
+        if (result == null || !result.isValid()) {
+            result = resolve();
+            if (!DumbService.isDumb(this.project)) {
+                this.state = result;
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private State resolve() {
+        PyClass pythonClass = PythonResolver.findClass(ROBOT_BUILT_IN, this.project);
+        KeywordFile builtIn = RobotLibdocFile.find(ROBOT_BUILT_IN, ROBOT_BUILT_IN, pythonClass, this.project);
+        PsiElement anchor = builtIn == null ? null : ((RobotLibdocFile) builtIn).getSpecFile();
+        if (builtIn == null && pythonClass != null) {
+            builtIn = new RobotPythonClass(ROBOT_BUILT_IN, pythonClass, ImportType.LIBRARY);
+            anchor = pythonClass;
+        }
+        List<DefinedVariable> variables = new ArrayList<DefinedVariable>();
+        List<PsiElement> anchors = new ArrayList<PsiElement>();
+        for (ReservedVariable variable : ReservedVariable.values()) {
+            PsiElement pythonVariable = variable.getVariable(this.project);
+            if (pythonVariable != null) {
+                // already formatted ${X}
+                variables.add(new VariableDto(pythonVariable, variable.getVariable(), variable.getScope()));
+                anchors.add(pythonVariable);
+            }
+        }
+        if (anchor != null) {
+            anchors.add(anchor);
+        }
+        return new State(builtIn, Collections.unmodifiableList(variables), anchors);
+    }
+
+    private static class State {
+
+        private final KeywordFile builtIn;
+        private final Collection<DefinedVariable> variables;
+        private final Collection<PsiElement> anchors;
+
+        private State(@Nullable KeywordFile builtIn, @NotNull Collection<DefinedVariable> variables,
+                      @NotNull Collection<PsiElement> anchors) {
+            this.builtIn = builtIn;
+            this.variables = variables;
+            this.anchors = anchors;
+        }
+
+        private boolean isValid() {
+            for (PsiElement anchor : this.anchors) {
+                if (!anchor.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
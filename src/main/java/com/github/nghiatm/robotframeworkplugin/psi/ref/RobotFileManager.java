@@ -6,18 +6,14 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.ProjectScope;
-import com.intellij.util.containers.MultiMap;
 import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * This handles finding Robot files or python classes/files.
  *
@@ -26,43 +22,11 @@ import java.util.Map;
  */
 public class RobotFileManager {
 
-    private static final Map<String, PsiElement> FILE_CACHE = new HashMap<String, PsiElement>();
-    private static final MultiMap<PsiElement, String> FILE_NAMES = MultiMap.createSet();
-
     private RobotFileManager() {
         NotificationsConfiguration.getNotificationsConfiguration().register(
                 "intellibot.debug", NotificationDisplayType.NONE);
     }
 
-    @Nullable
-    private static synchronized PsiElement getFromCache(@NotNull String value) {
-        PsiElement element = FILE_CACHE.get(value);
-        // evict the element if it is from an old instance
-        if (element != null && element.getProject().isDisposed()) {
-            evict(element);
-            return null;
-        }
-        return element;
-    }
-
-    private static synchronized void addToCache(@Nullable PsiElement element, @NotNull String value) {
-        if (element != null && !element.getProject().isDisposed()) {
-            FILE_CACHE.put(value, element);
-            FILE_NAMES.putValue(element, value);
-        }
-    }
-
-    public static synchronized void evict(@Nullable PsiElement element) {
-        if (element != null) {
-            Collection<String> keys = FILE_NAMES.remove(element);
-            if (keys != null) {
-                for (String key : keys) {
-                    FILE_CACHE.remove(key);
-                }
-            }
-        }
-    }
-
     @Nullable
     public static PsiElement findRobot(@Nullable String resource, @NotNull Project project,
                                        @NotNull PsiElement originalElement) {
@@ -70,6 +34,13 @@ public class RobotFileManager {
         if (resource == null) {
             return null;
         }
+        RobotImportCache cache = RobotImportCache.getInstance(project);
+        VirtualFile directory = getDirectory(originalElement);
+        PsiElement result = cache.get(directory, resource, false);
+        if (result != null) {
+            LogUtil.debug("Found ["+resource+"] in cache: "+ result.getContainingFile().getVirtualFile().getCanonicalPath(), "RobotFileManager", "findRobot", project);
+            return result;
+        }
 
         String[] file = getFilename(resource, "");
         String path = file[0];
@@ -89,17 +60,11 @@ public class RobotFileManager {
             }
         }
 
-        PsiElement result = getFromCache(path+file[1]);
-            if (result != null) {
-            LogUtil.debug("Found ["+resource+"] in cache: "+ result.getContainingFile().getVirtualFile().getCanonicalPath(), "RobotFileManager", "findRobot", project);
-            return result;
-        }
-
         debug(resource, "Attempting global search (keywords)", project);
         result = findGlobalFile(resource, path, file[1], project, originalElement);
             if(result!= null){
             LogUtil.debug("Found: "+ result, "RobotFileManager", "findRobot", project);
-            addToCache(result, result.getContainingFile().getVirtualFile().getCanonicalPath());
+            cache.put(directory, resource, false, file[1], result);
         }
         return result;
     }
@@ -108,47 +73,57 @@ public class RobotFileManager {
     public static PsiElement findPython(@Nullable String library, @NotNull Project project,
                                         @NotNull PsiElement originalElement) {
         LogUtil.debug("Start findPython: "+ library, "RobotFileManager", "findPython", project);
+        if (library == null) {
+            return null;
+        }
         if(library.contains("${env}")){
             library= library.replace("${env}", "local");
         }
 
-        if (library == null) {
-            return null;
-        }
-        PsiElement result = getFromCache(library);
+        RobotImportCache cache = RobotImportCache.getInstance(project);
+        VirtualFile directory = getDirectory(originalElement);
+        PsiElement result = cache.get(directory, library, true);
         if (result != null) {
             LogUtil.debug("Found from cached: "+ result, "RobotFileManager", "findPython", project);
             return result;
         }
+        String mod = library.replace(".py", "").replaceAll("\\.", "\\/");
+        while (mod.contains("//")) {
+            mod = mod.replace("//", "/");
+        }
+        String[] file = getFilename(mod, ".py");
+
         debug(library, "Attempting class search (python)", project);
         result = PythonResolver.findClass(library, project);
         if (result != null) {
-            addToCache(result, library);
+            cache.put(directory, library, true, file[1], result);
             return result;
         }
 
-        String mod = library.replace(".py", "").replaceAll("\\.", "\\/");
-        while (mod.contains("//")) {
-            mod = mod.replace("//", "/");
-        }
-        String[] file = getFilename(mod, ".py");
         // search project scope
         debug(library, "Attempting project search (python)", project);
         result = findProjectFile(library, file[0], file[1], project, originalElement);
         if (result != null) {
-            addToCache(result, library);
+            cache.put(directory, library, true, file[1], result);
             return result;
         }
         // search global scope... this can get messy
         debug(library, "Attempting global search (python)", project);
         result = findGlobalFile(library, file[0], file[1], project, originalElement);
         if (result != null) {
-            addToCache(result, library);
+            cache.put(directory, library, true, file[1], result);
             return result;
         }
         return null;
     }
 
+    @Nullable
+    private static VirtualFile getDirectory(@NotNull PsiElement element) {
+        PsiFile file = element.getContainingFile();
+        VirtualFile virtualFile = file == null ? null : file.getOriginalFile().getVirtualFile();
+        return virtualFile == null ? null : virtualFile.getParent();
+    }
+
     @Nullable
     private static PsiFile findProjectFile(@NotNull String original, @NotNull String path, @NotNull String fileName,
                                            @NotNull Project project, @NotNull PsiElement originalElement) {
@@ -181,6 +156,17 @@ public class RobotFileManager {
             }
         }
 
+        if (RobotPathSuffixTrie.isSupported(path)) {
+            VirtualFile match = RobotPathSuffixTrie.getInstance(project).findFile(path, fileName, search);
+            PsiFile file = match == null ? null : PsiManager.getInstance(project).findFile(match);
+            if (file != null) {
+                debug(original, "matched: " + match.getCanonicalPath(), project);
+                return file;
+            }
+            debug(original, "no acceptable matches", project);
+            return null;
+        }
+
         PsiFile[] files = FilenameIndex.getFilesByName(project, fileName, search);
         StringBuilder builder = new StringBuilder();
         builder.append(path);
@@ -0,0 +1,168 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.Argument;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordInvokable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Variable;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * The resolved references of one robot file, shared by the references themselves, the inspections and the
+ * headings so each reference is resolved once per change.
+ * <p>
+ * Keywords resolve the same anywhere in the file, so they are kept by name; variables and arguments are kept
+ * per element. Resolution depends on the imported files as well, so everything is dropped when any PSI changes.
+ */
+public class RobotFileResolution {
+
+    private static final Object UNRESOLVED = new Object();
+
+    private final PsiFile file;
+    private final ConcurrentMap<String, Object> keywords = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<PsiElement, Object> elements = new ConcurrentHashMap<PsiElement, Object>();
+    private final ConcurrentMap<PsiElement, Summary> summaries = new ConcurrentHashMap<PsiElement, Summary>();
+
+    private RobotFileResolution(@NotNull PsiFile file) {
+        this.file = file;
+    }
+
+    @NotNull
+    public static RobotFileResolution getInstance(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () ->
+                CachedValueProvider.Result.create(new RobotFileResolution(file), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    /**
+     * @param keyword the keyword as invoked in this file.
+     * @return the definition it resolves to or null.
+     */
+    @Nullable
+    public PsiElement resolveKeyword(@NotNull String keyword) {
+        Object result = this.keywords.get(keyword);
+        if (result == null) {
+            // not computeIfAbsent; resolving may resolve other keywords of this file
+            PsiElement resolved = ResolverUtils.resolveKeywordFromFile(keyword, this.file);
+            result = resolved == null ? UNRESOLVED : resolved;
+            this.keywords.put(keyword, result);
+        }
+        return result == UNRESOLVED ? null : (PsiElement) result;
+    }
+
+    /**
+     * @param element  an element of this file.
+     * @param resolver resolves the element when it has not been resolved yet.
+     * @return the resolved element or null.
+     */
+    @Nullable
+    public <T extends PsiElement> PsiElement resolve(@NotNull T element, @NotNull Function<T, PsiElement> resolver) {
+        Object result = this.elements.get(element);
+        if (result == null) {
+            PsiElement resolved = resolver.apply(element);
+            result = resolved == null ? UNRESOLVED : resolved;
+            this.elements.put(element, result);
+        }
+        return result == UNRESOLVED ? null : (PsiElement) result;
+    }
+
+    /**
+     * @param scope the file or one of its headings.
+     * @return the files defining the keywords and variables used within the scope.
+     */
+    @NotNull
+    public Collection<PsiFile> getReferencedFiles(@NotNull PsiElement scope) {
+        return getSummary(scope).files;
+    }
+
+    /**
+     * @param scope      the file or one of its headings.
+     * @param definition the keyword.
+     * @return the invocations of the keyword within the scope.
+     */
+    @NotNull
+    public Collection<KeywordInvokable> getKeywordReferences(@NotNull PsiElement scope, @Nullable KeywordDefinition definition) {
+        if (definition == null) {
+            return Collections.emptySet();
+        }
+        return getSummary(scope).references.get(definition.getPresentableText());
+    }
+
+    @NotNull
+    private Summary getSummary(@NotNull PsiElement scope) {
+        Summary result = this.summaries.get(scope);
+        if (result == null) {
+            result = summarize(scope);
+            this.summaries.put(scope, result);
+        }
+        return result;
+    }
+
+    /**
+     * Resolves every keyword, keyword argument and variable in the scope in a single walk of its tree.
+     */
+    @NotNull
+    private Summary summarize(@NotNull PsiElement scope) {
+        PerformanceCollector debug = scope instanceof PerformanceEntity ?
+                PerformanceCollector.start((PerformanceEntity) scope, "resolve all") : null;
+        Summary summary = new Summary();
+        PsiTreeUtil.processElements(scope, element -> {
+            ProgressManager.checkCanceled();
+            if (element instanceof KeywordInvokable) {
+                KeywordInvokable invokable = (KeywordInvokable) element;
+                PsiElement resolved = resolveReference(invokable);
+                summary.addFile(resolved);
+                if (resolved instanceof KeywordDefinition) {
+                    summary.references.putValue(((KeywordDefinition) resolved).getPresentableText(), invokable);
+                }
+                for (Argument argument : invokable.getArguments()) {
+                    summary.addFile(resolveReference(argument));
+                }
+            } else if (element instanceof Variable) {
+                summary.addFile(resolveReference(element));
+            }
+            return true;
+        });
+        if (debug != null) {
+            debug.complete();
+        }
+        return summary;
+    }
+
+    @Nullable
+    private static PsiElement resolveReference(@NotNull PsiElement element) {
+        // the references resolve through this instance
+        PsiReference reference = element.getReference();
+        return reference == null ? null : reference.resolve();
+    }
+
+    private static class Summary {
+
+        private final Set<PsiFile> files = new HashSet<PsiFile>();
+        private final MultiMap<String, KeywordInvokable> references = new MultiMap<String, KeywordInvokable>();
+
+        private void addFile(@Nullable PsiElement resolved) {
+            if (resolved != null) {
+                this.files.add(resolved.getContainingFile());
+            }
+        }
+    }
+}
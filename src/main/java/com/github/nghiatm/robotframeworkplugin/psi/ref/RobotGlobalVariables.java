@@ -0,0 +1,219 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordInvokable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordStatement;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Summarizes the variables a keyword sets with 'Set Test/Suite/Global Variable', either itself or through the
+ * keywords it invokes.
+ * <p>
+ * Summaries are computed once per strongly connected component of the call graph, so recursive keywords are
+ * handled, and kept until any PSI changes as they depend on how keywords in other files resolve. Within a
+ * summary the latest setter comes first.
+ */
+public class RobotGlobalVariables {
+
+    private static final Key<CachedValue<ConcurrentMap<KeywordDefinition, RobotVariableMatcher>>> SUMMARIES =
+            Key.create("robot.global.variable.summaries");
+
+    private RobotGlobalVariables() {
+    }
+
+    /**
+     * @param statement the invoking statement.
+     * @return the keyword the statement invokes if it is defined in robot; null otherwise.
+     */
+    @Nullable
+    public static KeywordDefinition getInvokedDefinition(@NotNull KeywordStatement statement) {
+        KeywordInvokable invokable = statement.getInvokable();
+        if (invokable != null) {
+            PsiReference reference = invokable.getReference();
+            if (reference != null) {
+                PsiElement resolved = reference.resolve();
+                if (resolved instanceof KeywordDefinition) {
+                    return (KeywordDefinition) resolved;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param definition the keyword definition.
+     * @return the matcher over the variables the keyword sets globally.
+     */
+    @NotNull
+    public static RobotVariableMatcher getSetVariables(@NotNull KeywordDefinition definition) {
+        ConcurrentMap<KeywordDefinition, RobotVariableMatcher> summaries = getSummaries(definition.getProject());
+        RobotVariableMatcher result = summaries.get(definition);
+        if (result == null) {
+            PerformanceCollector debug = PerformanceCollector.start(definition, "global variable summary");
+            new Tarjan(summaries).visit(definition);
+            result = summaries.get(definition);
+            debug.complete();
+        }
+        return result;
+    }
+
+    @NotNull
+    private static ConcurrentMap<KeywordDefinition, RobotVariableMatcher> getSummaries(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, SUMMARIES, () ->
+                CachedValueProvider.Result.create(new ConcurrentHashMap<KeywordDefinition, RobotVariableMatcher>(),
+                        PsiModificationTracker.MODIFICATION_COUNT), false);
+    }
+
+    /**
+     * @param definition the keyword definition.
+     * @return the statements directly invoked by the definition; the last one first.
+     */
+    @NotNull
+    private static List<KeywordStatement> getStatements(@NotNull KeywordDefinition definition) {
+        List<KeywordInvokable> invoked = definition.getInvokedKeywords();
+        List<KeywordStatement> results = new ArrayList<KeywordStatement>(invoked.size());
+        for (int i = invoked.size() - 1; i >= 0; i--) {
+            PsiElement parent = invoked.get(i).getParent();
+            if (parent instanceof KeywordStatement) {
+                results.add((KeywordStatement) parent);
+            }
+        }
+        return results;
+    }
+
+    private static class Tarjan {
+
+        private final ConcurrentMap<KeywordDefinition, RobotVariableMatcher> summaries;
+        private final Map<KeywordDefinition, Integer> indexes = new HashMap<KeywordDefinition, Integer>();
+        private final Map<KeywordDefinition, Integer> lowLinks = new HashMap<KeywordDefinition, Integer>();
+        private final Map<KeywordDefinition, List<KeywordStatement>> statements = new HashMap<KeywordDefinition, List<KeywordStatement>>();
+        private final Map<KeywordStatement, KeywordDefinition> targets = new HashMap<KeywordStatement, KeywordDefinition>();
+        private final Deque<KeywordDefinition> stack = new ArrayDeque<KeywordDefinition>();
+        private final Set<KeywordDefinition> onStack = new HashSet<KeywordDefinition>();
+
+        private Tarjan(@NotNull ConcurrentMap<KeywordDefinition, RobotVariableMatcher> summaries) {
+            this.summaries = summaries;
+        }
+
+        /**
+         * Walks the call graph with an explicit work stack, so deep keyword chains do not overflow the stack.
+         */
+        private void visit(@NotNull KeywordDefinition root) {
+            Deque<Frame> work = new ArrayDeque<Frame>();
+            work.push(open(root));
+            while (!work.isEmpty()) {
+                ProgressManager.checkCanceled();
+                Frame frame = work.peek();
+                if (frame.next < frame.statements.size()) {
+                    KeywordStatement statement = frame.statements.get(frame.next++);
+                    KeywordDefinition next = getInvokedDefinition(statement);
+                    if (next != null) {
+                        this.targets.put(statement, next);
+                    }
+                    if (next == null || this.summaries.containsKey(next)) {
+                        continue;
+                    }
+                    if (!this.indexes.containsKey(next)) {
+                        work.push(open(next));
+                    } else if (this.onStack.contains(next)) {
+                        this.lowLinks.put(frame.definition, Math.min(this.lowLinks.get(frame.definition), this.indexes.get(next)));
+                    }
+                    continue;
+                }
+                work.pop();
+                close(frame.definition);
+                Frame parent = work.peek();
+                if (parent != null) {
+                    this.lowLinks.put(parent.definition,
+                            Math.min(this.lowLinks.get(parent.definition), this.lowLinks.get(frame.definition)));
+                }
+            }
+        }
+
+        @NotNull
+        private Frame open(@NotNull KeywordDefinition definition) {
+            int index = this.indexes.size();
+            this.indexes.put(definition, index);
+            this.lowLinks.put(definition, index);
+            this.stack.push(definition);
+            this.onStack.add(definition);
+            List<KeywordStatement> invoked = getStatements(definition);
+            this.statements.put(definition, invoked);
+            return new Frame(definition, invoked);
+        }
+
+        private void close(@NotNull KeywordDefinition definition) {
+            if (!this.lowLinks.get(definition).equals(this.indexes.get(definition))) {
+                return;
+            }
+            List<KeywordDefinition> members = new ArrayList<KeywordDefinition>();
+            KeywordDefinition member;
+            do {
+                member = this.stack.pop();
+                this.onStack.remove(member);
+                members.add(0, member);
+            } while (member != definition);
+            RobotVariableMatcher summary = summarize(members);
+            for (KeywordDefinition each : members) {
+                this.summaries.put(each, summary);
+            }
+        }
+
+        @NotNull
+        private RobotVariableMatcher summarize(@NotNull Collection<KeywordDefinition> members) {
+            Set<DefinedVariable> results = new LinkedHashSet<DefinedVariable>();
+            for (KeywordDefinition member : members) {
+                for (KeywordStatement statement : this.statements.get(member)) {
+                    DefinedVariable variable = statement.getGlobalVariable();
+                    if (variable != null) {
+                        results.add(variable);
+                    }
+                    KeywordDefinition next = this.targets.get(statement);
+                    // members of the component add their own variables
+                    RobotVariableMatcher summary = next == null || members.contains(next) ? null : this.summaries.get(next);
+                    if (summary != null) {
+                        results.addAll(summary.getVariables());
+                    }
+                }
+            }
+            return new RobotVariableMatcher(results);
+        }
+    }
+
+    private static class Frame {
+
+        private final KeywordDefinition definition;
+        private final List<KeywordStatement> statements;
+        private int next;
+
+        private Frame(@NotNull KeywordDefinition definition, @NotNull List<KeywordStatement> statements) {
+            this.definition = definition;
+            this.statements = statements;
+        }
+    }
+}
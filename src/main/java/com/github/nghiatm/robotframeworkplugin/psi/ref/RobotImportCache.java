@@ -0,0 +1,356 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyStatementList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches how imports resolve per project, keyed by the directory of the importing file and the import text.
+ * <p>
+ * Entries hold smart pointers so they do not keep PSI alive. They are dropped when their target is deleted,
+ * moved or renamed, when a file with the name they looked for appears, or when the top level of the python
+ * file they point into changes. Changes within python function and class bodies cannot change how an import
+ * resolves and are ignored.
+ * <p>
+ * The same changes, and anything else that may make imports resolve differently, are counted by the
+ * {@link #getModificationTracker() tracker} that values built from resolved imports depend on.
+ */
+public class RobotImportCache implements Disposable {
+
+    private static final int MAX_SIZE = 10000;
+    private static final int TRIMMED_SIZE = MAX_SIZE * 3 / 4;
+    private static final char SEPARATOR = '/';
+
+    private final ConcurrentMap<Key, Entry> cache = new ConcurrentHashMap<Key, Entry>();
+    private final ConcurrentMap<String, Set<Key>> keysByPath = new ConcurrentHashMap<String, Set<Key>>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+    private final Project project;
+
+    public RobotImportCache(@NotNull Project project) {
+        this.project = project;
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    fileChanged(event);
+                }
+            }
+        });
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                pythonChanged(event);
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                pythonChanged(event);
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                pythonChanged(event);
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                pythonChanged(event);
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                pythonChanged(event);
+            }
+        }, this);
+    }
+
+    public static RobotImportCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RobotImportCache.class);
+    }
+
+    /**
+     * @param directory the directory of the importing file; null if it is not backed by a file.
+     * @param text      the import as written.
+     * @param python    true for library imports.
+     * @return the cached resolution or null if there is none.
+     */
+    @Nullable
+    public PsiElement get(@Nullable VirtualFile directory, @NotNull String text, boolean python) {
+        Key key = new Key(directory, text, python);
+        Entry entry = this.cache.get(key);
+        PsiElement element = entry == null ? null : entry.pointer.getElement();
+        if (element == null) {
+            if (entry != null) {
+                if (this.cache.remove(key, entry)) {
+                    removeKey(entry.path, key);
+                }
+            }
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * @param directory the directory of the importing file; null if it is not backed by a file.
+     * @param text      the import as written.
+     * @param python    true for library imports.
+     * @param fileName  the file name that was looked for; a new file by that name invalidates the entry.
+     * @param element   the resolved element.
+     */
+    public void put(@Nullable VirtualFile directory, @NotNull String text, boolean python, @NotNull String fileName,
+                    @NotNull PsiElement element) {
+        PsiFile file = element.getContainingFile();
+        VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        if (virtualFile == null || this.project.isDisposed()) {
+            return;
+        }
+        SmartPsiElementPointer<PsiElement> pointer = SmartPointerManager.getInstance(this.project).createSmartPsiElementPointer(element);
+        Key key = new Key(directory, text, python);
+        String path = virtualFile.getPath();
+        Entry previous = this.cache.put(key, new Entry(pointer, path, fileName));
+        if (previous != null && !previous.path.equals(path)) {
+            removeKey(previous.path, key);
+        }
+        this.keysByPath.computeIfAbsent(path, p -> ConcurrentHashMap.newKeySet()).add(key);
+        if (this.cache.size() > MAX_SIZE) {
+            trim();
+        }
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    public int getSize() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return counts the changes that may make imports resolve differently.
+     */
+    @NotNull
+    public ModificationTracker getModificationTracker() {
+        return this.modificationTracker;
+    }
+
+    /**
+     * Tells that imports may resolve differently, ie as the project roots changed.
+     */
+    public void resolveChanged() {
+        this.modificationTracker.incModificationCount();
+    }
+
+    public void clear() {
+        this.evictions.addAndGet(this.cache.size());
+        this.cache.clear();
+        this.keysByPath.clear();
+        resolveChanged();
+    }
+
+    @Override
+    public void dispose() {
+        this.cache.clear();
+        this.keysByPath.clear();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, Entry>> iterator = this.cache.entrySet().iterator();
+        while (this.cache.size() > TRIMMED_SIZE && iterator.hasNext()) {
+            Map.Entry<Key, Entry> next = iterator.next();
+            iterator.remove();
+            removeKey(next.getValue().path, next.getKey());
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    private void removeKey(@NotNull String path, @NotNull Key key) {
+        Set<Key> keys = this.keysByPath.get(path);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                this.keysByPath.remove(path, keys);
+            }
+        }
+    }
+
+    private void fileChanged(@NotNull VFileEvent event) {
+        if (event instanceof VFileCreateEvent) {
+            VFileCreateEvent create = (VFileCreateEvent) event;
+            if (create.isDirectory()) {
+                clear();
+            } else {
+                nameAdded(create.getChildName());
+            }
+        } else if (event instanceof VFileCopyEvent) {
+            nameAdded(((VFileCopyEvent) event).getNewChildName());
+        } else if (event instanceof VFileMoveEvent) {
+            VFileMoveEvent move = (VFileMoveEvent) event;
+            pathRemoved(move.getOldPath());
+            nameAdded(move.getFile().getName());
+        } else if (event instanceof VFilePropertyChangeEvent) {
+            VFilePropertyChangeEvent change = (VFilePropertyChangeEvent) event;
+            if (!change.isRename()) {
+                return;
+            }
+            pathRemoved(change.getOldPath());
+            nameAdded(String.valueOf(change.getNewValue()));
+        } else if (event instanceof VFileDeleteEvent) {
+            pathRemoved(event.getPath());
+        } else {
+            return;
+        }
+        // also imports that did not resolve before, which are not cached
+        resolveChanged();
+    }
+
+    private void pythonChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (!(file instanceof PyFile) || isWithinBody(event.getParent())) {
+            return;
+        }
+        resolveChanged();
+        VirtualFile virtualFile = file.getVirtualFile();
+        if (virtualFile == null) {
+            return;
+        }
+        // only the entries pointing into this very file
+        Set<Key> keys = this.keysByPath.get(virtualFile.getPath());
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            if (key.python) {
+                keys.remove(key);
+                if (this.cache.remove(key) != null) {
+                    this.evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the element is part of the body of a function or class, or of a nested block.
+     */
+    private static boolean isWithinBody(@Nullable PsiElement element) {
+        return element != null && PsiTreeUtil.getParentOfType(element, PyStatementList.class, false) != null;
+    }
+
+    private void pathRemoved(@NotNull String path) {
+        for (Iterator<Map.Entry<String, Set<Key>>> iterator = this.keysByPath.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Set<Key>> next = iterator.next();
+            if (isAncestorOrSelf(path, next.getKey())) {
+                iterator.remove();
+                for (Key key : next.getValue()) {
+                    if (this.cache.remove(key) != null) {
+                        this.evictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private void nameAdded(@NotNull String name) {
+        for (Iterator<Map.Entry<Key, Entry>> iterator = this.cache.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Key, Entry> next = iterator.next();
+            if (name.equals(next.getValue().fileName)) {
+                iterator.remove();
+                removeKey(next.getValue().path, next.getKey());
+                this.evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean isAncestorOrSelf(@NotNull String path, @NotNull String target) {
+        return target.startsWith(path) && (target.length() == path.length() || target.charAt(path.length()) == SEPARATOR);
+    }
+
+    private static class Key {
+
+        private final String directory;
+        private final String text;
+        private final boolean python;
+
+        private Key(@Nullable VirtualFile directory, @NotNull String text, boolean python) {
+            this.directory = directory == null ? "" : directory.getPath();
+            this.text = text;
+            this.python = python;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.python == key.python && this.directory.equals(key.directory) && this.text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.directory.hashCode();
+            result = 31 * result + this.text.hashCode();
+            result = 31 * result + (this.python ? 1 : 0);
+            return result;
+        }
+    }
+
+    private static class Entry {
+
+        private final SmartPsiElementPointer<PsiElement> pointer;
+        private final String path;
+        private final String fileName;
+
+        private Entry(@NotNull SmartPsiElementPointer<PsiElement> pointer, @NotNull String path, @NotNull String fileName) {
+            this.pointer = pointer;
+            this.path = path;
+            this.fileName = fileName;
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
+import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the imports between robot files of a project.
+ * <p>
+ * Transitive imports are computed per strongly connected component, so files importing each other share one
+ * closure, and closures of imported components are reused by all their importers. When the imports of a file
+ * change only its own edges and the closures of the files that (transitively) import it are dropped.
+ * <p>
+ * The graph only holds virtual files and smart pointers; the imported files themselves are served from the
+ * caches of the headings, and a closure is only turned into files for the file asking for it. Imports are
+ * resolved outside of the lock, which only guards the bookkeeping of the graph. The whole graph is dropped when
+ * imports may resolve differently, as counted by the {@link RobotImportCache}; so are the imports cached by the
+ * headings.
+ * <p>
+ * Files in an import cycle all see the same closure; its order follows the cycle from the first member found.
+ */
+public class RobotImportGraph implements Disposable {
+
+    private static final Key<Closure> CLOSURE = Key.create("robot.import.closure");
+
+    private final ConcurrentMap<VirtualFile, Node> nodes = new ConcurrentHashMap<VirtualFile, Node>();
+    private final Map<VirtualFile, Set<VirtualFile>> importers = new HashMap<VirtualFile, Set<VirtualFile>>();
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+    private final Project project;
+    /**
+     * The count of the {@link RobotImportCache#getModificationTracker() resolve tracker} the graph is built for.
+     */
+    private volatile long resolveCount = -1;
+
+    public RobotImportGraph(@NotNull Project project) {
+        this.project = project;
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    // files coming and going change how imports resolve
+                    if (!(event instanceof VFileContentChangeEvent) &&
+                            !(event instanceof VFilePropertyChangeEvent && !((VFilePropertyChangeEvent) event).isRename())) {
+                        clear();
+                        return;
+                    }
+                }
+            }
+        });
+        connection.subscribe(ModuleRootListener.TOPIC, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                clear();
+            }
+        });
+    }
+
+    public static RobotImportGraph getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RobotImportGraph.class);
+    }
+
+    /**
+     * @param file              the importing file.
+     * @param includeTransitive true to include the imports of imported files.
+     * @return the imported files in the order they are imported.
+     */
+    @NotNull
+    public Collection<KeywordFile> getImportedFiles(@NotNull RobotFile file, boolean includeTransitive) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        if (!includeTransitive) {
+            return Collections.unmodifiableCollection(collectImports(file));
+        }
+        if (virtualFile == null) {
+            // not part of the graph; its imports are
+            Collection<KeywordFile> results = new LinkedHashSet<KeywordFile>();
+            for (KeywordFile imported : collectImports(file)) {
+                results.add(imported);
+                if (imported instanceof RobotFile && ((RobotFile) imported).getVirtualFile() != null) {
+                    results.addAll(getImportedFiles((RobotFile) imported, true));
+                }
+            }
+            return Collections.unmodifiableCollection(results);
+        }
+        checkResolved();
+        Node node = getNode(virtualFile, file);
+        long stamp = this.modificationTracker.getModificationCount();
+        Closure closure = file.getUserData(CLOSURE);
+        if (closure == null || closure.stamp != stamp) {
+            closure = new Closure(stamp, toFiles(getComponent(file, virtualFile, node).closure));
+            file.putUserData(CLOSURE, closure);
+        }
+        return closure.files;
+    }
+
+    /**
+     * Drops the imports of the file and the closures of everything importing it.
+     *
+     * @param file the file whose settings changed.
+     */
+    public void importsChanged(@NotNull RobotFile file) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        if (virtualFile != null) {
+            importsChanged(virtualFile);
+        }
+    }
+
+    /**
+     * Imports may resolve differently; the imports cached by the headings and the graph are dropped.
+     */
+    public void clear() {
+        RobotImportCache.getInstance(this.project).resolveChanged();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        this.nodes.clear();
+        this.importers.clear();
+    }
+
+    private void checkResolved() {
+        long count = RobotImportCache.getInstance(this.project).getModificationTracker().getModificationCount();
+        if (count != this.resolveCount) {
+            synchronized (this) {
+                if (count != this.resolveCount) {
+                    this.nodes.clear();
+                    this.importers.clear();
+                    this.modificationTracker.incModificationCount();
+                    this.resolveCount = count;
+                }
+            }
+        }
+    }
+
+    private synchronized void importsChanged(@NotNull VirtualFile file) {
+        Node node = this.nodes.remove(file);
+        if (node == null) {
+            return;
+        }
+        for (VirtualFile imported : node.targets) {
+            Set<VirtualFile> files = imported == null ? null : this.importers.get(imported);
+            if (files != null) {
+                files.remove(file);
+                if (files.isEmpty()) {
+                    this.importers.remove(imported);
+                }
+            }
+        }
+        for (VirtualFile importer : collectImporters(file)) {
+            Node affected = this.nodes.get(importer);
+            if (affected != null) {
+                affected.component = null;
+            }
+        }
+        this.modificationTracker.incModificationCount();
+    }
+
+    /**
+     * Resolves the imports of the file unless they are known already; resolving happens outside of the lock.
+     */
+    @NotNull
+    private Node getNode(@NotNull VirtualFile virtualFile, @NotNull RobotFile file) {
+        Node node = this.nodes.get(virtualFile);
+        List<Heading> headings = new ArrayList<Heading>(file.getHeadings());
+        if (node != null && !node.isFor(headings)) {
+            // a settings section was added or removed
+            importsChanged(virtualFile);
+            node = null;
+        }
+        if (node == null) {
+            node = publish(virtualFile, new Node(headings, collectImports(file), this.project));
+        }
+        return node;
+    }
+
+    @NotNull
+    private synchronized Node publish(@NotNull VirtualFile file, @NotNull Node node) {
+        Node existing = this.nodes.putIfAbsent(file, node);
+        if (existing != null) {
+            return existing;
+        }
+        for (VirtualFile imported : node.targets) {
+            if (imported != null) {
+                this.importers.computeIfAbsent(imported, key -> new HashSet<VirtualFile>()).add(file);
+            }
+        }
+        return node;
+    }
+
+    @Nullable
+    private Node getNode(@NotNull VirtualFile virtualFile) {
+        PsiFile file = virtualFile.isValid() ? PsiManager.getInstance(this.project).findFile(virtualFile) : null;
+        return file instanceof RobotFile ? getNode(virtualFile, (RobotFile) file) : null;
+    }
+
+    @NotNull
+    private Component getComponent(@NotNull RobotFile file, @NotNull VirtualFile virtualFile, @NotNull Node node) {
+        Component component = node.component;
+        if (component != null) {
+            return component;
+        }
+        PerformanceCollector debug = PerformanceCollector.start(file, "import closure");
+        while (node.component == null) {
+            if (!assignComponents(virtualFile, collectReachable(virtualFile, node))) {
+                // imports changed meanwhile; start over from the current node
+                node = getNode(virtualFile, file);
+            }
+        }
+        debug.complete();
+        return node.component;
+    }
+
+    /**
+     * Resolves the imports of every file reachable from the given one that does not have a component yet.
+     */
+    @NotNull
+    private Map<VirtualFile, Node> collectReachable(@NotNull VirtualFile file, @NotNull Node node) {
+        Map<VirtualFile, Node> results = new HashMap<VirtualFile, Node>();
+        results.put(file, node);
+        Deque<Node> queue = new ArrayDeque<Node>();
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            for (VirtualFile imported : queue.poll().targets) {
+                ProgressManager.checkCanceled();
+                if (imported == null || results.containsKey(imported)) {
+                    continue;
+                }
+                Node next = getNode(imported);
+                if (next != null && next.component == null) {
+                    results.put(imported, next);
+                    queue.add(next);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs Tarjan's algorithm with an explicit work stack over the reachable files. Components are found
+     * imported first, so the closures of all their imports are known when they are built.
+     *
+     * @return false if the graph changed since the reachable files were collected.
+     */
+    private synchronized boolean assignComponents(@NotNull VirtualFile root, @NotNull Map<VirtualFile, Node> reachable) {
+        if (reachable.get(root).component != null) {
+            // found by another thread
+            return true;
+        }
+        for (Map.Entry<VirtualFile, Node> entry : reachable.entrySet()) {
+            if (this.nodes.get(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+            for (VirtualFile imported : entry.getValue().targets) {
+                Node next = imported == null || reachable.containsKey(imported) ? null : this.nodes.get(imported);
+                if (next != null && next.component == null) {
+                    return false;
+                }
+            }
+        }
+        Map<VirtualFile, Integer> indexes = new HashMap<VirtualFile, Integer>();
+        Map<VirtualFile, Integer> lowLinks = new HashMap<VirtualFile, Integer>();
+        Deque<VirtualFile> stack = new ArrayDeque<VirtualFile>();
+        Set<VirtualFile> onStack = new HashSet<VirtualFile>();
+        Deque<Frame> work = new ArrayDeque<Frame>();
+        work.push(new Frame(root, reachable.get(root)));
+        while (!work.isEmpty()) {
+            Frame frame = work.peek();
+            if (frame.next == 0) {
+                int index = indexes.size();
+                indexes.put(frame.file, index);
+                lowLinks.put(frame.file, index);
+                stack.push(frame.file);
+                onStack.add(frame.file);
+            }
+            if (frame.next < frame.node.targets.size()) {
+                VirtualFile imported = frame.node.targets.get(frame.next++);
+                Node next = imported == null ? null : reachable.get(imported);
+                if (next == null || next.component != null) {
+                    continue;
+                }
+                if (!indexes.containsKey(imported)) {
+                    work.push(new Frame(imported, next));
+                } else if (onStack.contains(imported)) {
+                    lowLinks.put(frame.file, Math.min(lowLinks.get(frame.file), indexes.get(imported)));
+                }
+                continue;
+            }
+            work.pop();
+            if (lowLinks.get(frame.file).equals(indexes.get(frame.file))) {
+                Component component = new Component();
+                VirtualFile member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.members.add(0, member);
+                } while (!member.equals(frame.file));
+                buildClosure(component, reachable);
+                for (VirtualFile file : component.members) {
+                    reachable.get(file).component = component;
+                }
+            }
+            Frame parent = work.peek();
+            if (parent != null) {
+                lowLinks.put(parent.file, Math.min(lowLinks.get(parent.file), lowLinks.get(frame.file)));
+            }
+        }
+        return true;
+    }
+
+    private void buildClosure(@NotNull Component component, @NotNull Map<VirtualFile, Node> reachable) {
+        for (VirtualFile member : component.members) {
+            Node node = reachable.get(member);
+            for (int i = 0; i < node.targets.size(); i++) {
+                component.closure.add(new Step(member, i));
+                VirtualFile imported = node.targets.get(i);
+                Node next = imported == null ? null : this.nodes.get(imported);
+                // imported components are complete already; members of this one are covered by the loop
+                if (next != null && next.component != null && !component.members.contains(imported)) {
+                    component.closure.addAll(next.component.closure);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private Set<VirtualFile> collectImporters(@NotNull VirtualFile target) {
+        Set<VirtualFile> results = new LinkedHashSet<VirtualFile>();
+        Deque<VirtualFile> queue = new ArrayDeque<VirtualFile>();
+        queue.add(target);
+        while (!queue.isEmpty()) {
+            Set<VirtualFile> files = this.importers.get(queue.poll());
+            if (files != null) {
+                for (VirtualFile file : files) {
+                    if (results.add(file)) {
+                        queue.add(file);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @NotNull
+    private Collection<KeywordFile> toFiles(@NotNull Collection<Step> closure) {
+        Map<VirtualFile, List<KeywordFile>> imports = new HashMap<VirtualFile, List<KeywordFile>>();
+        Collection<KeywordFile> results = new LinkedHashSet<KeywordFile>();
+        for (Step step : closure) {
+            List<KeywordFile> files = imports.computeIfAbsent(step.file, this::getImports);
+            if (step.index < files.size()) {
+                results.add(files.get(step.index));
+            }
+        }
+        return Collections.unmodifiableCollection(results);
+    }
+
+    @NotNull
+    private List<KeywordFile> getImports(@NotNull VirtualFile virtualFile) {
+        PsiFile file = virtualFile.isValid() ? PsiManager.getInstance(this.project).findFile(virtualFile) : null;
+        return file instanceof RobotFile ?
+                new ArrayList<KeywordFile>(collectImports((RobotFile) file)) : Collections.emptyList();
+    }
+
+    @NotNull
+    private static Collection<KeywordFile> collectImports(@NotNull RobotFile file) {
+        Collection<KeywordFile> results = new LinkedHashSet<KeywordFile>();
+        for (Heading heading : file.getHeadings()) {
+            // cached by the heading until it changes
+            results.addAll(heading.getImportedFiles());
+        }
+        return results;
+    }
+
+    private static class Node {
+
+        private final List<SmartPsiElementPointer<Heading>> headings = new ArrayList<SmartPsiElementPointer<Heading>>();
+        /**
+         * The robot files among the imports, at the position of the import; null for libraries.
+         */
+        private final List<VirtualFile> targets = new ArrayList<VirtualFile>();
+        private volatile Component component;
+
+        private Node(@NotNull List<Heading> headings, @NotNull Collection<KeywordFile> imports, @NotNull Project project) {
+            SmartPointerManager manager = SmartPointerManager.getInstance(project);
+            for (Heading heading : headings) {
+                this.headings.add(manager.createSmartPsiElementPointer(heading));
+            }
+            for (KeywordFile imported : imports) {
+                this.targets.add(imported instanceof RobotFile ? ((RobotFile) imported).getVirtualFile() : null);
+            }
+        }
+
+        private boolean isFor(@NotNull List<Heading> headings) {
+            if (headings.size() != this.headings.size()) {
+                return false;
+            }
+            for (int i = 0; i < headings.size(); i++) {
+                if (this.headings.get(i).getElement() != headings.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Component {
+
+        private final List<VirtualFile> members = new ArrayList<VirtualFile>();
+        /**
+         * The imports of the members and of everything they import, in order, as positions in the imports of
+         * the importing file.
+         */
+        private final Collection<Step> closure = new LinkedHashSet<Step>();
+    }
+
+    private static class Step {
+
+        private final VirtualFile file;
+        private final int index;
+
+        private Step(@NotNull VirtualFile file, int index) {
+            this.file = file;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Step step = (Step) o;
+            return this.index == step.index && this.file.equals(step.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.file.hashCode() + this.index;
+        }
+    }
+
+    private static class Frame {
+
+        private final VirtualFile file;
+        private final Node node;
+        private int next;
+
+        private Frame(@NotNull VirtualFile file, @NotNull Node node) {
+            this.file = file;
+            this.node = node;
+        }
+    }
+
+    private static class Closure {
+
+        private final long stamp;
+        private final Collection<KeywordFile> files;
+
+        private Closure(long stamp, @NotNull Collection<KeywordFile> files) {
+            this.stamp = stamp;
+            this.files = files;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the keyword a call refers to among a set of defined keywords.
+ * <p>
+ * Plain keywords are looked up by their normalized name, with and without their namespace. Keywords with
+ * embedded arguments still need their pattern; they are only tried if the text contains their longest
+ * literal part.
+ */
+public class RobotKeywordMatcher {
+
+    private static final String EMBEDDED_START = "${";
+    private static final String DOT = ".";
+
+    private final Map<String, DefinedKeyword> keywords = new HashMap<String, DefinedKeyword>();
+    private final List<EmbeddedKeyword> embeddedKeywords = new ArrayList<EmbeddedKeyword>();
+    private final Collection<DefinedKeyword> allKeywords;
+
+    public RobotKeywordMatcher(@NotNull Collection<DefinedKeyword> keywords) {
+        this.allKeywords = keywords;
+        for (DefinedKeyword keyword : keywords) {
+            String name = keyword.getKeywordName();
+            if (name == null) {
+                continue;
+            }
+            name = name.trim();
+            if (name.contains(EMBEDDED_START)) {
+                this.embeddedKeywords.add(new EmbeddedKeyword(keyword, getLongestFragment(name)));
+            } else {
+                add(name, keyword);
+                String namespace = keyword.getNamespace();
+                if (namespace != null && !namespace.isEmpty()) {
+                    add(namespace + DOT + name, keyword);
+                }
+            }
+        }
+    }
+
+    private void add(@NotNull String name, @NotNull DefinedKeyword keyword) {
+        String key = PatternUtil.normalizeKeyword(name);
+        if (!key.isEmpty() && !this.keywords.containsKey(key)) {
+            this.keywords.put(key, keyword);
+        }
+    }
+
+    /**
+     * @return all keywords the matcher was built from.
+     */
+    @NotNull
+    public Collection<DefinedKeyword> getKeywords() {
+        return this.allKeywords;
+    }
+
+    /**
+     * Plain keywords win over ones with embedded arguments, as they do in robot.
+     *
+     * @param text the keyword as it is invoked; possibly prefixed with a namespace.
+     * @return the matching keyword or null if there is none.
+     */
+    @Nullable
+    public DefinedKeyword find(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        String key = PatternUtil.normalizeKeyword(text.trim());
+        DefinedKeyword result = this.keywords.get(key);
+        if (result != null) {
+            return result;
+        }
+        for (EmbeddedKeyword embedded : this.embeddedKeywords) {
+            if (key.contains(embedded.fragment) && embedded.keyword.matches(text)) {
+                return embedded.keyword;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return this.keywords.isEmpty() && this.embeddedKeywords.isEmpty();
+    }
+
+    @NotNull
+    private static String getLongestFragment(@NotNull String name) {
+        String result = "";
+        for (String fragment : PatternUtil.getKeywordFragments(name)) {
+            if (fragment.length() > result.length()) {
+                result = fragment;
+            }
+        }
+        return result;
+    }
+
+    private static class EmbeddedKeyword {
+
+        private final DefinedKeyword keyword;
+        private final String fragment;
+
+        private EmbeddedKeyword(@NotNull DefinedKeyword keyword, @NotNull String fragment) {
+            this.keyword = keyword;
+            this.fragment = fragment;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.github.nghiatm.robotframeworkplugin.psi.util.LogUtil;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
 import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReferenceBase;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,8 +27,9 @@ public class RobotKeywordReference extends PsiReferenceBase<KeywordInvokable> {
 //        LogUtil.debug("Start resolve keyword: \""+ keyword + "\" in ["+((PerformanceEntity)element).getDebugFileName()+"]", "RobotKeywordReference", "resolve", element.getProject());
         // all files we import are based off the file we are currently in
         // TODO: potentially unsafe cast
-        PerformanceCollector debug = new PerformanceCollector((PerformanceEntity) element, "resolve");
-        PsiElement results = ResolverUtils.resolveKeywordFromFile(keyword, element.getContainingFile());
+        PerformanceCollector debug = PerformanceCollector.start((PerformanceEntity) element, "resolve");
+        PsiFile file = element.getContainingFile();
+        PsiElement results = file == null ? null : RobotFileResolution.getInstance(file).resolveKeyword(keyword);
         debug.complete();
         return results;
     }
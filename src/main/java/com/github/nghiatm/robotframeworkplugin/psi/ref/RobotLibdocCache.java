@@ -0,0 +1,126 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Loads libdoc specs and keeps them in memory and in the IDE system directory, keyed by library name and version,
+ * so a spec is only parsed again when its file changes.
+ */
+public class RobotLibdocCache {
+
+    private static final String DIRECTORY = "robot-libdoc";
+    private static final String EXTENSION = ".bin";
+    private static final String JSON = "json";
+    private static final String UNSAFE = "[^A-Za-z0-9._-]";
+    private static final String SAFE = "_";
+
+    private final ConcurrentMap<String, Entry> specs = new ConcurrentHashMap<String, Entry>();
+
+    public static RobotLibdocCache getInstance() {
+        return ServiceManager.getService(RobotLibdocCache.class);
+    }
+
+    /**
+     * @param file the libdoc spec; XML or JSON.
+     * @return the spec or null if the file is not a libdoc spec or can not be read.
+     */
+    @Nullable
+    public RobotLibdocSpec getSpec(@NotNull VirtualFile file) {
+        long stamp = getStamp(file);
+        Entry entry = this.specs.get(file.getPath());
+        if (entry != null && entry.stamp == stamp) {
+            return entry.spec;
+        }
+        RobotLibdocSpec spec = load(file, stamp);
+        this.specs.put(file.getPath(), new Entry(spec, stamp));
+        return spec;
+    }
+
+    @Nullable
+    private static RobotLibdocSpec load(@NotNull VirtualFile file, long stamp) {
+        boolean json = JSON.equalsIgnoreCase(file.getExtension());
+        try {
+            RobotLibdocSpec header;
+            try (InputStream stream = file.getInputStream()) {
+                header = RobotLibdocSpec.readHeader(json, stream);
+            }
+            if (header == null) {
+                return null;
+            }
+            Path persisted = getPersistedPath(header);
+            RobotLibdocSpec spec = read(persisted, stamp);
+            if (spec == null) {
+                try (InputStream stream = file.getInputStream()) {
+                    spec = RobotLibdocSpec.parse(json, stream);
+                }
+                if (spec != null) {
+                    write(persisted, spec, stamp);
+                }
+            }
+            return spec;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static RobotLibdocSpec read(@NotNull Path path, long stamp) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return RobotLibdocSpec.read(input, stamp);
+        } catch (IOException e) {
+            // corrupt or from an older format; it is written again
+            return null;
+        }
+    }
+
+    private static void write(@NotNull Path path, @NotNull RobotLibdocSpec spec, long stamp) {
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                spec.write(output, stamp);
+            }
+        } catch (IOException ignored) {
+            // only a cache; the spec is parsed again next time
+        }
+    }
+
+    @NotNull
+    private static Path getPersistedPath(@NotNull RobotLibdocSpec header) {
+        String name = (header.getName() + "-" + header.getVersion()).replaceAll(UNSAFE, SAFE);
+        return Paths.get(PathManager.getSystemPath(), DIRECTORY, name + EXTENSION);
+    }
+
+    private static long getStamp(@NotNull VirtualFile file) {
+        return file.getTimeStamp() * 31 + file.getLength();
+    }
+
+    private static class Entry {
+
+        private final RobotLibdocSpec spec;
+        private final long stamp;
+
+        private Entry(@Nullable RobotLibdocSpec spec, long stamp) {
+            this.spec = spec;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.dto.ImportType;
+import com.github.nghiatm.robotframeworkplugin.psi.dto.KeywordDto;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceEntity;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.jetbrains.python.psi.PyClass;
+import com.jetbrains.python.psi.PyFile;
+import com.jetbrains.python.psi.PyFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A library whose keywords come from a libdoc spec rather than from its python sources.
+ * <p>
+ * Specs are looked up by the library name, as 'SeleniumLibrary.libspec', 'SeleniumLibrary.xml' or
+ * 'SeleniumLibrary.json', anywhere in the project or its libraries. They only stand in for libraries installed
+ * outside of the project content, and only while they are not older than the python sources. The spec only
+ * provides the keyword table; keywords resolve to their python function once asked for, and to the spec file
+ * when the library has no sources.
+ */
+public class RobotLibdocFile implements KeywordFile, PerformanceEntity {
+
+    private static final String[] EXTENSIONS = {".libspec", ".xml", ".json"};
+    private static final String PYTHON_EXTENSION = ".py";
+    private static final String SEPARATOR = "/";
+    private static final String DOT = ".";
+    private static final Key<CachedValue<ConcurrentMap<String, RobotPythonWrapper.Members>>> MEMBERS =
+            Key.create("robot.libdoc.members");
+    private static final Key<CachedValue<ConcurrentMap<String, Object>>> SPEC_FILES = Key.create("robot.libdoc.spec.files");
+    private static final Object NO_SPEC = new Object();
+
+    private final String library;
+    private final PsiFile specFile;
+    private final RobotLibdocSpec spec;
+    private final SmartPsiElementPointer<PsiElement> source;
+
+    private RobotLibdocFile(@NotNull String library, @NotNull PsiFile specFile, @NotNull RobotLibdocSpec spec,
+                            @Nullable SmartPsiElementPointer<PsiElement> source) {
+        this.library = library;
+        this.specFile = specFile;
+        this.spec = spec;
+        this.source = source;
+    }
+
+    /**
+     * @param path    the library as imported; a name, a module or a path to a python file.
+     * @param library the name it is imported by.
+     * @param source  the python class or file the library resolves to; null if it does not resolve.
+     * @param project the project.
+     * @return the library backed by its spec or null if there is no usable spec for it.
+     */
+    @Nullable
+    public static RobotLibdocFile find(@NotNull String path, @NotNull String library, @Nullable PsiElement source,
+                                       @NotNull Project project) {
+        String name = getLibraryName(path);
+        if (name.isEmpty()) {
+            return null;
+        }
+        VirtualFile sourceFile = source == null || source.getContainingFile() == null ? null :
+                source.getContainingFile().getVirtualFile();
+        if (sourceFile != null && ProjectFileIndex.getInstance(project).isInContent(sourceFile)) {
+            // the sources are being worked on; a spec would hide new keywords
+            return null;
+        }
+        VirtualFile file = findSpecFile(name, project);
+        if (file == null || sourceFile != null && file.getTimeStamp() < sourceFile.getTimeStamp()) {
+            return null;
+        }
+        RobotLibdocSpec spec = RobotLibdocCache.getInstance().getSpec(file);
+        PsiFile specFile = spec == null ? null : PsiManager.getInstance(project).findFile(file);
+        if (specFile == null) {
+            return null;
+        }
+        SmartPsiElementPointer<PsiElement> pointer = source == null ? null :
+                SmartPointerManager.getInstance(project).createSmartPsiElementPointer(source);
+        return new RobotLibdocFile(library, specFile, spec, pointer);
+    }
+
+    /**
+     * The lookups are kept until files are added, removed or renamed, or the project roots change.
+     */
+    @Nullable
+    private static VirtualFile findSpecFile(@NotNull String name, @NotNull Project project) {
+        ConcurrentMap<String, Object> files = CachedValuesManager.getManager(project).getCachedValue(project, SPEC_FILES, () ->
+                CachedValueProvider.Result.create(new ConcurrentHashMap<String, Object>(),
+                        VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS, ProjectRootManager.getInstance(project)), false);
+        Object result = files.get(name);
+        if (result == null) {
+            result = NO_SPEC;
+            GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+            for (String extension : EXTENSIONS) {
+                for (VirtualFile file : FilenameIndex.getVirtualFilesByName(project, name + extension, scope)) {
+                    if (RobotLibdocCache.getInstance().getSpec(file) != null) {
+                        result = file;
+                        break;
+                    }
+                }
+                if (result != NO_SPEC) {
+                    break;
+                }
+            }
+            files.put(name, result);
+        }
+        return result instanceof VirtualFile && ((VirtualFile) result).isValid() ? (VirtualFile) result : null;
+    }
+
+    @NotNull
+    private static String getLibraryName(@NotNull String path) {
+        String name = path.trim();
+        int separator = name.lastIndexOf(SEPARATOR);
+        if (separator >= 0) {
+            name = name.substring(separator + 1);
+        }
+        if (name.endsWith(PYTHON_EXTENSION)) {
+            name = name.substring(0, name.length() - PYTHON_EXTENSION.length());
+        }
+        // module.Class imports are documented by the class name
+        int dot = name.lastIndexOf(DOT);
+        return dot >= 0 ? name.substring(dot + 1) : name;
+    }
+
+    @NotNull
+    PsiFile getSpecFile() {
+        return this.specFile;
+    }
+
+    @NotNull
+    private RobotPythonWrapper.Members getMembers() {
+        ConcurrentMap<String, RobotPythonWrapper.Members> values = CachedValuesManager.getCachedValue(this.specFile, MEMBERS, () ->
+                CachedValueProvider.Result.create(new ConcurrentHashMap<String, RobotPythonWrapper.Members>(), this.specFile));
+        // the keywords point into the sources, so each source has its own
+        VirtualFile sourceFile = this.source == null ? null : this.source.getVirtualFile();
+        String key = sourceFile == null ? this.library : this.library + SEPARATOR + sourceFile.getPath();
+        return values.computeIfAbsent(key, name -> new RobotPythonWrapper.Members());
+    }
+
+    @NotNull
+    @Override
+    public Collection<DefinedKeyword> getDefinedKeywords() {
+        return getMembers().getKeywords(this::collectDefinedKeywords);
+    }
+
+    @NotNull
+    private Collection<DefinedKeyword> collectDefinedKeywords() {
+        PerformanceCollector debug = PerformanceCollector.start(this, "libdoc keywords");
+        int count = this.spec.getKeywordCount();
+        List<DefinedKeyword> results = new ArrayList<DefinedKeyword>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new LibdocKeyword(this.specFile, this.source, this.library, this.spec.getKeyword(i),
+                    this.spec.hasArguments(i)));
+        }
+        debug.complete();
+        return results;
+    }
+
+    @NotNull
+    @Override
+    public RobotKeywordMatcher getKeywordMatcher() {
+        return getMembers().getKeywordMatcher(this::collectDefinedKeywords);
+    }
+
+    @NotNull
+    @Override
+    public Collection<DefinedVariable> getDefinedVariables() {
+        return Collections.emptyList();
+    }
+
+    @NotNull
+    @Override
+    public RobotVariableMatcher getVariableMatcher() {
+        return getMembers().getVariableMatcher(Collections::emptyList);
+    }
+
+    @NotNull
+    @Override
+    public ImportType getImportType() {
+        return ImportType.LIBRARY;
+    }
+
+    @NotNull
+    @Override
+    public Collection<KeywordFile> getImportedFiles(boolean includeTransitive) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RobotLibdocFile that = (RobotLibdocFile) o;
+        if (this.source == null || that.source == null) {
+            return this.source == that.source && this.library.equals(that.library) && this.specFile.equals(that.specFile);
+        }
+        return this.library.equals(that.library) && this.specFile.equals(that.specFile) &&
+                SmartPointerManager.getInstance(getProject()).pointToTheSameElement(this.source, that.source);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.library.hashCode();
+        result = 31 * result + this.specFile.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.library;
+    }
+
+    @NotNull
+    @Override
+    public String getDebugFileName() {
+        return this.library;
+    }
+
+    @NotNull
+    @Override
+    public String getDebugText() {
+        return this.specFile.getName();
+    }
+
+    @NotNull
+    @Override
+    public Project getProject() {
+        return this.specFile.getProject();
+    }
+
+    /**
+     * A keyword of the spec; it resolves to the python function of the same name once asked for, as finding
+     * usages and going to the declaration need the function.
+     */
+    private static class LibdocKeyword extends KeywordDto {
+
+        private final SmartPsiElementPointer<PsiElement> source;
+        private final String normalizedName;
+        private volatile SmartPsiElementPointer<PyFunction> function;
+
+        private LibdocKeyword(@NotNull PsiFile specFile, @Nullable SmartPsiElementPointer<PsiElement> source,
+                              @NotNull String library, @NotNull String name, boolean args) {
+            super(specFile, library, name, args);
+            this.source = source;
+            this.normalizedName = PatternUtil.normalizeKeyword(name);
+        }
+
+        @Override
+        public PsiElement reference() {
+            SmartPsiElementPointer<PyFunction> pointer = this.function;
+            PyFunction result = pointer == null ? null : pointer.getElement();
+            if (result == null) {
+                result = findFunction(this.source == null ? null : this.source.getElement());
+                if (result == null) {
+                    // no sources, or the keyword is named by a decorator
+                    return super.reference();
+                }
+                this.function = SmartPointerManager.getInstance(result.getProject()).createSmartPsiElementPointer(result);
+            }
+            return result;
+        }
+
+        @Nullable
+        private PyFunction findFunction(@Nullable PsiElement source) {
+            PyFunction[] result = {null};
+            if (source instanceof PyClass) {
+                ((PyClass) source).visitMethods(function -> {
+                    if (matches(function)) {
+                        result[0] = function;
+                        return false;
+                    }
+                    return true;
+                }, true, null);
+            } else if (source instanceof PyFile) {
+                for (PyFunction function : ((PyFile) source).getTopLevelFunctions()) {
+                    if (matches(function)) {
+                        return function;
+                    }
+                }
+            }
+            return result[0];
+        }
+
+        private boolean matches(@NotNull PyFunction function) {
+            String name = function.getName();
+            return name != null && this.normalizedName.equals(PatternUtil.normalizeKeyword(name));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The keywords of a library as described by a Robot Framework libdoc spec, either XML (.xml, .libspec) or JSON.
+ * <p>
+ * Only what completion and resolution need is kept: keyword names and whether they take arguments.
+ */
+public class RobotLibdocSpec {
+
+    private static final int FORMAT = 1;
+    private static final String UNKNOWN = "";
+
+    private static final String XML_ROOT = "keywordspec";
+    private static final String XML_INITS = "inits";
+    private static final String XML_INIT = "init";
+    private static final String XML_KEYWORD = "kw";
+    private static final String XML_ARGUMENT = "arg";
+    private static final String XML_VERSION = "version";
+    private static final String NAME = "name";
+    private static final String JSON_KEYWORDS = "keywords";
+    private static final String JSON_ARGUMENTS = "args";
+    private static final String JSON_VERSION = "version";
+    private static final String JSON_SPEC_VERSION = "specversion";
+
+    private final String name;
+    private final String version;
+    private final String[] keywords;
+    private final BitSet arguments;
+
+    private RobotLibdocSpec(@NotNull String name, @NotNull String version, @NotNull String[] keywords, @NotNull BitSet arguments) {
+        this.name = name;
+        this.version = version;
+        this.keywords = keywords;
+        this.arguments = arguments;
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    @NotNull
+    public String getVersion() {
+        return this.version;
+    }
+
+    public int getKeywordCount() {
+        return this.keywords.length;
+    }
+
+    @NotNull
+    public String getKeyword(int index) {
+        return this.keywords[index];
+    }
+
+    public boolean hasArguments(int index) {
+        return this.arguments.get(index);
+    }
+
+    /**
+     * Reads just enough of the spec to know which library and version it describes.
+     *
+     * @param json   true for JSON specs; XML otherwise.
+     * @param stream the spec contents.
+     * @return the name and version of the library, without keywords; null if this is not a libdoc spec.
+     */
+    @Nullable
+    public static RobotLibdocSpec readHeader(boolean json, @NotNull InputStream stream) throws IOException {
+        return json ? parseJson(stream, true) : parseXml(stream, true);
+    }
+
+    /**
+     * @param json   true for JSON specs; XML otherwise.
+     * @param stream the spec contents.
+     * @return the spec or null if this is not a libdoc spec.
+     */
+    @Nullable
+    public static RobotLibdocSpec parse(boolean json, @NotNull InputStream stream) throws IOException {
+        return json ? parseJson(stream, false) : parseXml(stream, false);
+    }
+
+    @Nullable
+    private static RobotLibdocSpec parseXml(@NotNull InputStream stream, boolean headerOnly) throws IOException {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(stream);
+            try {
+                if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !XML_ROOT.equals(reader.getLocalName())) {
+                    return null;
+                }
+                String name = value(reader.getAttributeValue(null, NAME));
+                // older specs keep the version as an attribute
+                String version = value(reader.getAttributeValue(null, XML_VERSION));
+                List<String> keywords = new ArrayList<String>();
+                BitSet arguments = new BitSet();
+                int depth = 1;
+                int inits = 0;
+                int keyword = 0;
+                while (reader.hasNext() && depth > 0) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String element = reader.getLocalName();
+                        if (depth == 2 && XML_VERSION.equals(element)) {
+                            version = value(reader.getElementText());
+                            depth--;
+                            if (headerOnly) {
+                                break;
+                            }
+                        } else if (inits == 0 && (XML_INITS.equals(element) || XML_INIT.equals(element))) {
+                            inits = depth;
+                        } else if (XML_KEYWORD.equals(element) && inits == 0) {
+                            if (headerOnly) {
+                                break;
+                            }
+                            keyword = depth;
+                            keywords.add(value(reader.getAttributeValue(null, NAME)));
+                        } else if (XML_ARGUMENT.equals(element) && keyword > 0) {
+                            arguments.set(keywords.size() - 1);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == inits) {
+                            inits = 0;
+                        } else if (depth == keyword) {
+                            keyword = 0;
+                        }
+                        depth--;
+                    }
+                }
+                return new RobotLibdocSpec(name, version, keywords.toArray(new String[0]), arguments);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static RobotLibdocSpec parseJson(@NotNull InputStream stream, boolean headerOnly) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+            reader.beginObject();
+            String name = null;
+            String version = UNKNOWN;
+            boolean spec = false;
+            List<String> keywords = new ArrayList<String>();
+            BitSet arguments = new BitSet();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (NAME.equals(key) && reader.peek() == JsonToken.STRING) {
+                    name = reader.nextString();
+                } else if (JSON_VERSION.equals(key) && reader.peek() == JsonToken.STRING) {
+                    version = reader.nextString();
+                } else if (JSON_SPEC_VERSION.equals(key)) {
+                    spec = true;
+                    reader.skipValue();
+                } else if (JSON_KEYWORDS.equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    spec = true;
+                    if (headerOnly && name != null) {
+                        break;
+                    }
+                    readJsonKeywords(reader, keywords, arguments);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            if (!spec || name == null) {
+                return null;
+            }
+            return new RobotLibdocSpec(name, version, keywords.toArray(new String[0]), arguments);
+        } catch (IllegalStateException e) {
+            // not shaped like a spec
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readJsonKeywords(@NotNull JsonReader reader, @NotNull List<String> keywords,
+                                         @NotNull BitSet arguments) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            String name = UNKNOWN;
+            boolean args = false;
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (NAME.equals(key) && reader.peek() == JsonToken.STRING) {
+                    name = reader.nextString();
+                } else if (JSON_ARGUMENTS.equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    args = reader.hasNext();
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (args) {
+                arguments.set(keywords.size());
+            }
+            keywords.add(name);
+        }
+        reader.endArray();
+    }
+
+    @NotNull
+    private static String value(@Nullable String text) {
+        return text == null ? UNKNOWN : text.trim();
+    }
+
+    /**
+     * @param input the persisted spec.
+     * @param stamp the stamp of the spec file it has to have been read from.
+     * @return the spec or null if it was persisted in another format or from another version of the file.
+     */
+    @Nullable
+    public static RobotLibdocSpec read(@NotNull DataInput input, long stamp) throws IOException {
+        if (input.readInt() != FORMAT || input.readLong() != stamp) {
+            return null;
+        }
+        String name = input.readUTF();
+        String version = input.readUTF();
+        int count = input.readInt();
+        String[] keywords = new String[count];
+        BitSet arguments = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            keywords[i] = input.readUTF();
+            if (input.readBoolean()) {
+                arguments.set(i);
+            }
+        }
+        return new RobotLibdocSpec(name, version, keywords, arguments);
+    }
+
+    public void write(@NotNull DataOutput output, long stamp) throws IOException {
+        output.writeInt(FORMAT);
+        output.writeLong(stamp);
+        output.writeUTF(this.name);
+        output.writeUTF(this.version);
+        output.writeInt(this.keywords.length);
+        for (int i = 0; i < this.keywords.length; i++) {
+            output.writeUTF(this.keywords[i]);
+            output.writeBoolean(this.arguments.get(i));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds files by name and the directories their path ends with. For every file name a trie is built over
+ * the directories of all files with that name, walked from the file upwards, so a lookup only costs the
+ * depth of the requested path.
+ * <p>
+ * Tries are built on first use and dropped when files with their name come and go; directory changes and
+ * root changes drop them all.
+ */
+public class RobotPathSuffixTrie implements Disposable {
+
+    private static final String SEPARATOR = "/";
+    private static final String ROBOT_SEPARATOR = "${/}";
+    private static final String CURRENT = ".";
+    private static final String PARENT = "..";
+
+    private final ConcurrentMap<String, Node> roots = new ConcurrentHashMap<String, Node>();
+    private final Project project;
+
+    public RobotPathSuffixTrie(@NotNull Project project) {
+        this.project = project;
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    fileChanged(event);
+                }
+            }
+        });
+        connection.subscribe(ModuleRootListener.TOPIC, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                RobotPathSuffixTrie.this.roots.clear();
+            }
+        });
+    }
+
+    public static RobotPathSuffixTrie getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, RobotPathSuffixTrie.class);
+    }
+
+    /**
+     * Tells if the path can be looked up; paths with relative segments or not ending in a separator can not.
+     *
+     * @param path the directories the file has to be in; either '/' or '${/}' separated.
+     * @return true if {@link #findFile(String, String, GlobalSearchScope)} can answer for this path.
+     */
+    public static boolean isSupported(@NotNull String path) {
+        String normalized = normalize(path);
+        if (!normalized.isEmpty() && !normalized.endsWith(SEPARATOR)) {
+            return false;
+        }
+        for (String segment : normalized.split(SEPARATOR)) {
+            if (CURRENT.equals(segment) || PARENT.equals(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param path     the directories the file has to be in; either '/' or '${/}' separated. Matching is done
+     *                 on the text of the path so the first directory may be the end of a longer name.
+     * @param fileName the name of the file.
+     * @param scope    the scope the file has to be in.
+     * @return the first file by that name whose path ends with the given path.
+     */
+    @Nullable
+    public VirtualFile findFile(@NotNull String path, @NotNull String fileName, @NotNull GlobalSearchScope scope) {
+        Node node = getRoot(fileName);
+        String normalized = normalize(path);
+        String[] segments = split(normalized);
+        for (int i = segments.length - 1; i > 0 && node != null; i--) {
+            node = node.children.get(segments[i]);
+        }
+        if (node == null) {
+            return null;
+        }
+        if (segments.length == 0) {
+            return node.first(scope);
+        }
+        // the first directory is matched on its end only, the path may have been written relative to it
+        String first = segments[0];
+        Node exact = node.children.get(first);
+        VirtualFile result = exact == null ? null : exact.first(scope);
+        if (result == null && !normalized.startsWith(SEPARATOR)) {
+            for (Map.Entry<String, Node> child : node.children.entrySet()) {
+                if (child.getKey().endsWith(first)) {
+                    result = child.getValue().first(scope);
+                    if (result != null) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void dispose() {
+        this.roots.clear();
+    }
+
+    @NotNull
+    private Node getRoot(@NotNull String fileName) {
+        Node root = this.roots.get(fileName);
+        if (root == null) {
+            root = build(fileName);
+            Node existing = this.roots.putIfAbsent(fileName, root);
+            if (existing != null) {
+                root = existing;
+            }
+        }
+        return root;
+    }
+
+    @NotNull
+    private Node build(@NotNull String fileName) {
+        Node root = new Node();
+        Collection<VirtualFile> files = FilenameIndex.getVirtualFilesByName(this.project, fileName,
+                GlobalSearchScope.allScope(this.project));
+        for (VirtualFile file : files) {
+            String path = file.getCanonicalPath();
+            if (path == null) {
+                path = file.getPath();
+            }
+            String[] segments = split(path);
+            // the last segment is the file name itself
+            Node node = root;
+            node.files.add(file);
+            for (int i = segments.length - 2; i >= 0; i--) {
+                node = node.child(segments[i]);
+                node.files.add(file);
+            }
+        }
+        return root;
+    }
+
+    private void fileChanged(@NotNull VFileEvent event) {
+        VirtualFile file = event.getFile();
+        if (event instanceof VFileCreateEvent) {
+            VFileCreateEvent create = (VFileCreateEvent) event;
+            if (create.isDirectory()) {
+                this.roots.clear();
+            } else {
+                this.roots.remove(create.getChildName());
+            }
+        } else if (event instanceof VFileCopyEvent) {
+            this.roots.remove(((VFileCopyEvent) event).getNewChildName());
+        } else if (event instanceof VFilePropertyChangeEvent) {
+            VFilePropertyChangeEvent change = (VFilePropertyChangeEvent) event;
+            if (change.isRename()) {
+                if (change.getFile().isDirectory()) {
+                    this.roots.clear();
+                } else {
+                    this.roots.remove(String.valueOf(change.getOldValue()));
+                    this.roots.remove(String.valueOf(change.getNewValue()));
+                }
+            }
+        } else if ((event instanceof VFileMoveEvent || event instanceof VFileDeleteEvent) && file != null) {
+            if (file.isDirectory()) {
+                this.roots.clear();
+            } else {
+                this.roots.remove(file.getName());
+            }
+        }
+    }
+
+    @NotNull
+    private static String normalize(@NotNull String path) {
+        return path.replace(ROBOT_SEPARATOR, SEPARATOR);
+    }
+
+    @NotNull
+    private static String[] split(@NotNull String path) {
+        List<String> results = new ArrayList<String>();
+        for (String segment : path.split(SEPARATOR)) {
+            if (!segment.isEmpty()) {
+                results.add(segment);
+            }
+        }
+        return results.toArray(new String[0]);
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private final List<VirtualFile> files = new ArrayList<VirtualFile>();
+
+        @NotNull
+        private Node child(@NotNull String segment) {
+            Node child = this.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                this.children.put(segment, child);
+            }
+            return child;
+        }
+
+        @Nullable
+        private VirtualFile first(@NotNull GlobalSearchScope scope) {
+            for (VirtualFile file : this.files) {
+                if (file.isValid() && scope.contains(file)) {
+                    return file;
+                }
+            }
+            return null;
+        }
+    }
+}
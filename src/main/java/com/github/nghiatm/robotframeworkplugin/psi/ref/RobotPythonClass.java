@@ -32,23 +32,45 @@ public class RobotPythonClass extends RobotPythonWrapper implements KeywordFile,
     @NotNull
     @Override
     public Collection<DefinedKeyword> getDefinedKeywords() {
+        return getMembers(this.pythonClass, this.library).getKeywords(this::collectDefinedKeywords);
+    }
+
+    @NotNull
+    private Collection<DefinedKeyword> collectDefinedKeywords() {
         final Collection<DefinedKeyword> results = new HashSet<>();
-        PerformanceCollector debug = new PerformanceCollector(this, "get defined keywords");
+        PerformanceCollector debug = PerformanceCollector.start(this, "get defined keywords");
         addDefinedKeywords(this.pythonClass, this.library, results);
         debug.complete();
         return results;
     }
 
+    @NotNull
+    @Override
+    public RobotKeywordMatcher getKeywordMatcher() {
+        return getMembers(this.pythonClass, this.library).getKeywordMatcher(this::collectDefinedKeywords);
+    }
+
     @NotNull
     @Override
     public Collection<DefinedVariable> getDefinedVariables() {
+        return getMembers(this.pythonClass, this.library).getVariables(this::collectDefinedVariables);
+    }
+
+    @NotNull
+    private Collection<DefinedVariable> collectDefinedVariables() {
         final Collection<DefinedVariable> results = new HashSet<DefinedVariable>();
-        PerformanceCollector debug = new PerformanceCollector(this, "get defined variables");
+        PerformanceCollector debug = PerformanceCollector.start(this, "get defined variables");
         addDefinedVariables(this.pythonClass, results);
         debug.complete();
         return results;
     }
 
+    @NotNull
+    @Override
+    public RobotVariableMatcher getVariableMatcher() {
+        return getMembers(this.pythonClass, this.library).getVariableMatcher(this::collectDefinedVariables);
+    }
+
     @NotNull
     @Override
     public ImportType getImportType() {
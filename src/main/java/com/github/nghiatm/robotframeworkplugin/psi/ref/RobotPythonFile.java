@@ -8,6 +8,7 @@ import com.github.nghiatm.robotframeworkplugin.psi.util.ReservedVariableScope;
 import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
 import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
 import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordFile;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.jetbrains.python.psi.PyClass;
 import com.jetbrains.python.psi.PyFile;
@@ -42,7 +43,12 @@ public class RobotPythonFile extends RobotPythonWrapper implements KeywordFile,
     @NotNull
     @Override
     public Collection<DefinedKeyword> getDefinedKeywords() {
-        PerformanceCollector debug = new PerformanceCollector(this, "get defined keywords");
+        return getMembers(this.pythonFile, this.library).getKeywords(this::collectDefinedKeywords);
+    }
+
+    @NotNull
+    private Collection<DefinedKeyword> collectDefinedKeywords() {
+        PerformanceCollector debug = PerformanceCollector.start(this, "get defined keywords");
         Collection<DefinedKeyword> results = new HashSet<DefinedKeyword>();
         for (PyFunction function : this.pythonFile.getTopLevelFunctions()) {
             String keyword = functionToKeyword(function.getName());
@@ -57,6 +63,7 @@ public class RobotPythonFile extends RobotPythonWrapper implements KeywordFile,
             }
         }
         for (PyClass subClass : this.pythonFile.getTopLevelClasses()) {
+            ProgressManager.checkCanceled();
             String namespace = subClass.getQualifiedName() == null ? EMPTY : subClass.getQualifiedName();
             addDefinedKeywords(subClass, namespace, results);
         }
@@ -64,10 +71,21 @@ public class RobotPythonFile extends RobotPythonWrapper implements KeywordFile,
         return results;
     }
 
+    @NotNull
+    @Override
+    public RobotKeywordMatcher getKeywordMatcher() {
+        return getMembers(this.pythonFile, this.library).getKeywordMatcher(this::collectDefinedKeywords);
+    }
+
     @NotNull
     @Override
     public Collection<DefinedVariable> getDefinedVariables() {
-        PerformanceCollector debug = new PerformanceCollector(this, "get defined variables");
+        return getMembers(this.pythonFile, this.library).getVariables(this::collectDefinedVariables);
+    }
+
+    @NotNull
+    private Collection<DefinedVariable> collectDefinedVariables() {
+        PerformanceCollector debug = PerformanceCollector.start(this, "get defined variables");
         final Collection<DefinedVariable> results = new HashSet<DefinedVariable>();
         for (PyTargetExpression expression : this.pythonFile.getTopLevelAttributes()) {
             String keyword = expression.getName();
@@ -84,6 +102,12 @@ public class RobotPythonFile extends RobotPythonWrapper implements KeywordFile,
         return results;
     }
 
+    @NotNull
+    @Override
+    public RobotVariableMatcher getVariableMatcher() {
+        return getMembers(this.pythonFile, this.library).getVariableMatcher(this::collectDefinedVariables);
+    }
+
     @NotNull
     @Override
     public ImportType getImportType() {
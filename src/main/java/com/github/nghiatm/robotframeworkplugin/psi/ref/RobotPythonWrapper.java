@@ -5,13 +5,26 @@ import com.github.nghiatm.robotframeworkplugin.psi.dto.VariableDto;
 import com.github.nghiatm.robotframeworkplugin.psi.util.ReservedVariableScope;
 import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
 import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.Processor;
+import com.jetbrains.python.PythonLanguage;
 import com.jetbrains.python.psi.*;
 import com.github.nghiatm.robotframeworkplugin.psi.util.ReservedVariable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
  * @author mrubino
@@ -21,6 +34,24 @@ public abstract class RobotPythonWrapper {
 
     private static final String UNDERSCORE = "_";
     private static final String SELF = "self";
+    private static final Key<CachedValue<ConcurrentMap<String, Members>>> MEMBERS = Key.create("robot.python.members");
+
+    /**
+     * The keywords and variables of a python class or file are extracted once per name it is imported by and
+     * shared by every robot file importing it. Members may be inherited from other python files so they are
+     * dropped on any python change; robot changes keep them.
+     *
+     * @param element the python class or file.
+     * @param library the name it is imported by.
+     * @return the cached members of the element imported by that name.
+     */
+    @NotNull
+    protected static Members getMembers(@NotNull PsiElement element, @NotNull String library) {
+        ConcurrentMap<String, Members> values = CachedValuesManager.getCachedValue(element, MEMBERS, () ->
+                CachedValueProvider.Result.create(new ConcurrentHashMap<String, Members>(),
+                        PsiModificationTracker.getInstance(element.getProject()).forLanguage(PythonLanguage.getInstance())));
+        return values.computeIfAbsent(library, name -> new Members());
+    }
 
     protected static boolean hasArguments(@Nullable PyParameter[] parameters) {
         if (parameters == null || parameters.length == 0) {
@@ -74,6 +105,8 @@ public abstract class RobotPythonWrapper {
 
                     @Override
                     public boolean process(PyFunction function) {
+                        // large class hierarchies; completion stops loading them as soon as the user types on
+                        ProgressManager.checkCanceled();
                         String keyword = functionToKeyword(function.getName());
                         if (keyword != null) {
                             // Get info from @keyword
@@ -123,4 +156,55 @@ public abstract class RobotPythonWrapper {
                 null
         );
     }
+
+    /**
+     * Flat tables of the keywords and variables of a python library, each built on first use.
+     */
+    protected static class Members {
+
+        private volatile DefinedKeyword[] keywords;
+        private volatile DefinedVariable[] variables;
+        private volatile RobotKeywordMatcher keywordMatcher;
+        private volatile RobotVariableMatcher variableMatcher;
+
+        @NotNull
+        public Collection<DefinedKeyword> getKeywords(@NotNull Supplier<Collection<DefinedKeyword>> supplier) {
+            DefinedKeyword[] results = this.keywords;
+            if (results == null) {
+                results = supplier.get().toArray(new DefinedKeyword[0]);
+                this.keywords = results;
+            }
+            return Collections.unmodifiableList(Arrays.asList(results));
+        }
+
+        @NotNull
+        public Collection<DefinedVariable> getVariables(@NotNull Supplier<Collection<DefinedVariable>> supplier) {
+            DefinedVariable[] results = this.variables;
+            if (results == null) {
+                results = supplier.get().toArray(new DefinedVariable[0]);
+                this.variables = results;
+            }
+            return Collections.unmodifiableList(Arrays.asList(results));
+        }
+
+        @NotNull
+        public RobotKeywordMatcher getKeywordMatcher(@NotNull Supplier<Collection<DefinedKeyword>> supplier) {
+            RobotKeywordMatcher result = this.keywordMatcher;
+            if (result == null) {
+                result = new RobotKeywordMatcher(getKeywords(supplier));
+                this.keywordMatcher = result;
+            }
+            return result;
+        }
+
+        @NotNull
+        public RobotVariableMatcher getVariableMatcher(@NotNull Supplier<Collection<DefinedVariable>> supplier) {
+            RobotVariableMatcher result = this.variableMatcher;
+            if (result == null) {
+                result = new RobotVariableMatcher(getVariables(supplier));
+                this.variableMatcher = result;
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the definition a variable usage refers to among a set of defined variables.
+ * <p>
+ * Definitions are looked up by their canonical key regardless of the sigil used; '${x}', '@{x}', '&amp;{x}' and
+ * '${x}[0]' all find 'x'. Attribute and item access within the braces ('${x.y}', '${x['y']}') is tried by
+ * the key of its base name. Nested definitions and usages fall back to the definition patterns.
+ */
+public class RobotVariableMatcher {
+
+    private static final String SIGILS = "$@&%";
+    private static final char OPEN = '{';
+    private static final char CLOSE = '}';
+    private static final char ITEM_START = '[';
+    private static final char ITEM_END = ']';
+    private static final char ATTRIBUTE = '.';
+
+    private final Map<String, DefinedVariable> variables = new HashMap<String, DefinedVariable>();
+    private final List<DefinedVariable> patternVariables = new ArrayList<DefinedVariable>();
+    private final Collection<DefinedVariable> allVariables;
+
+    public RobotVariableMatcher(@NotNull Collection<DefinedVariable> variables) {
+        this.allVariables = variables;
+        for (DefinedVariable variable : variables) {
+            String key = getKey(variable);
+            if (key == null) {
+                this.patternVariables.add(variable);
+            } else if (!this.variables.containsKey(key)) {
+                this.variables.put(key, variable);
+            }
+        }
+    }
+
+    /**
+     * @return all variables the matcher was built from.
+     */
+    @NotNull
+    public Collection<DefinedVariable> getVariables() {
+        return this.allVariables;
+    }
+
+    /**
+     * @param text the variable as it is used.
+     * @return the matching definition or null if there is none.
+     */
+    @Nullable
+    public DefinedVariable find(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        List<String> keys = getKeys(text);
+        if (keys == null) {
+            // nested or otherwise unusual; only the patterns know
+            return findByPattern(text, this.allVariables);
+        }
+        DefinedVariable result = this.variables.get(keys.get(0));
+        if (result != null) {
+            return result;
+        }
+        for (int i = 1; i < keys.size(); i++) {
+            DefinedVariable candidate = this.variables.get(keys.get(i));
+            if (candidate != null && candidate.matches(text)) {
+                return candidate;
+            }
+        }
+        return findByPattern(text, this.patternVariables);
+    }
+
+    /**
+     * @param variable the definition.
+     * @return the key the definition is found by or null if only its pattern can match it.
+     */
+    @Nullable
+    static String getKey(@NotNull DefinedVariable variable) {
+        String lookup = variable.getLookup();
+        return lookup == null ? null : PatternUtil.getVariableKey(lookup);
+    }
+
+    /**
+     * The first key is that of the whole usage; the others are those of its base names in extended variable
+     * syntax, ${x.attribute} or ${x['item']}, longest first. Definitions found by the latter still have to match.
+     *
+     * @param text the variable as it is used.
+     * @return the keys of the definitions the usage may refer to; null if only patterns can tell.
+     */
+    @Nullable
+    static List<String> getKeys(@NotNull String text) {
+        String body = getBody(text.trim());
+        if (body == null) {
+            return null;
+        }
+        List<String> results = new ArrayList<String>();
+        results.add(PatternUtil.normalizeKeyword(body));
+        for (int i = body.length() - 1; i > 0; i--) {
+            char c = body.charAt(i);
+            if (c == ATTRIBUTE || c == ITEM_START) {
+                results.add(PatternUtil.normalizeKeyword(body.substring(0, i)));
+            }
+        }
+        return results;
+    }
+
+    @Nullable
+    private static DefinedVariable findByPattern(@NotNull String text, @NotNull Collection<DefinedVariable> variables) {
+        for (DefinedVariable variable : variables) {
+            if (variable.matches(text)) {
+                return variable;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param text the variable usage.
+     * @return the text between the braces without any trailing index; null if it is not a simple usage.
+     */
+    @Nullable
+    private static String getBody(@NotNull String text) {
+        if (text.length() < 3 || SIGILS.indexOf(text.charAt(0)) < 0 || text.charAt(1) != OPEN) {
+            return null;
+        }
+        int end = text.length();
+        // ${x}[0]
+        if (text.charAt(end - 1) == ITEM_END) {
+            int start = text.lastIndexOf(ITEM_START);
+            if (start < 0 || !isDigits(text, start + 1, end - 1)) {
+                return null;
+            }
+            end = start;
+        }
+        if (end < 3 || text.charAt(end - 1) != CLOSE) {
+            return null;
+        }
+        String body = text.substring(2, end - 1);
+        if (body.isEmpty() || body.indexOf(OPEN) >= 0 || body.indexOf(CLOSE) >= 0) {
+            return null;
+        }
+        return body;
+    }
+
+    private static boolean isDigits(@NotNull String text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
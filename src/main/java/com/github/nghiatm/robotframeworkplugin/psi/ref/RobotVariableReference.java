@@ -20,6 +20,15 @@ public class RobotVariableReference extends PsiReferenceBase<Variable> {
     @Nullable
     @Override
     public PsiElement resolve() {
+        PsiFile file = getElement().getContainingFile();
+        if (file == null) {
+            return resolveVariable();
+        }
+        return RobotFileResolution.getInstance(file).resolve(getElement(), element -> resolveVariable());
+    }
+
+    @Nullable
+    private PsiElement resolveVariable() {
         String text = getElement().getPresentableText();
         PsiElement parent = getElement().getParent();
         PsiElement results = ResolverUtils.resolveVariableFromStatement(text, parent,
@@ -0,0 +1,271 @@
+package com.github.nghiatm.robotframeworkplugin.psi.ref;
+
+import com.github.nghiatm.robotframeworkplugin.psi.dto.VariableDto;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Argument;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedVariable;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordStatement;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Variable;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PatternUtil;
+import com.github.nghiatm.robotframeworkplugin.psi.util.PerformanceCollector;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The variables defined within a keyword or test case body, ordered by where they are defined.
+ * <p>
+ * Every definition is kept with the offset of the statement defining it, relative to the start of the body,
+ * so the definitions visible to a statement are those with a lower offset. Lookups probe the key of the usage
+ * and binary search for the latest definition before the statement. Arguments and inline variables of the
+ * name are visible everywhere.
+ */
+public class RobotVariableScope {
+
+    private static final int EVERYWHERE = -1;
+    private static final String FOR = "for";
+    private static final String OLD_FOR = ":for";
+    private static final String IN = "in";
+    private static final String SIGILS = "$@&";
+
+    private final int[] offsets;
+    private final DefinedVariable[] variables;
+    private final Map<String, int[]> keyed;
+    private final int[] unkeyed;
+
+    private RobotVariableScope(@NotNull List<Integer> offsets, @NotNull List<DefinedVariable> variables) {
+        int size = variables.size();
+        this.offsets = new int[size];
+        this.variables = variables.toArray(new DefinedVariable[size]);
+        Map<String, List<Integer>> keyed = new HashMap<String, List<Integer>>();
+        List<Integer> unkeyed = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++) {
+            this.offsets[i] = offsets.get(i);
+            String key = RobotVariableMatcher.getKey(this.variables[i]);
+            if (key == null) {
+                unkeyed.add(i);
+            } else {
+                keyed.computeIfAbsent(key, k -> new ArrayList<Integer>()).add(i);
+            }
+        }
+        this.keyed = new HashMap<String, int[]>(keyed.size());
+        for (Map.Entry<String, List<Integer>> entry : keyed.entrySet()) {
+            this.keyed.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        this.unkeyed = toArray(unkeyed);
+    }
+
+    /**
+     * Builds the scope of the local definitions: arguments, inline variables, assignments and loop variables.
+     *
+     * @param definition the keyword or test case.
+     * @return the scope of the body.
+     */
+    @NotNull
+    public static RobotVariableScope createLocal(@NotNull KeywordDefinition definition) {
+        PerformanceCollector debug = PerformanceCollector.start(definition, "variable scope");
+        List<Integer> offsets = new ArrayList<Integer>();
+        List<DefinedVariable> variables = new ArrayList<DefinedVariable>();
+        for (DefinedVariable variable : definition.getDeclaredVariables()) {
+            offsets.add(EVERYWHERE);
+            variables.add(variable);
+        }
+        // the FOR marker may be a token of its own, followed by the statement holding the loop variables
+        boolean loop = false;
+        for (PsiElement child = definition.getFirstChild(); child != null; child = child.getNextSibling()) {
+            int offset = child.getStartOffsetInParent();
+            if (child instanceof DefinedVariable) {
+                // ${x}  some keyword results
+                offsets.add(offset);
+                variables.add((DefinedVariable) child);
+                loop = false;
+            } else if (child instanceof KeywordStatement) {
+                if (loop || isLoopStart(child)) {
+                    addLoopVariables(child, offset, offsets, variables);
+                }
+                loop = false;
+            } else if (!child.getText().trim().isEmpty()) {
+                loop = isLoopStart(child);
+            }
+        }
+        debug.complete();
+        return new RobotVariableScope(offsets, variables);
+    }
+
+    /**
+     * Builds the scope of the variables set by 'Set Test/Suite/Global Variable' in the statements of the body or in
+     * the keywords they invoke. This depends on how keywords resolve so it is kept until any PSI changes.
+     *
+     * @param definition the keyword or test case.
+     * @return the scope of the body.
+     */
+    @NotNull
+    public static RobotVariableScope getGlobal(@NotNull KeywordDefinition definition) {
+        return CachedValuesManager.getCachedValue(definition, () ->
+                CachedValueProvider.Result.create(createGlobal(definition), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    @NotNull
+    private static RobotVariableScope createGlobal(@NotNull KeywordDefinition definition) {
+        PerformanceCollector debug = PerformanceCollector.start(definition, "global variable scope");
+        List<Integer> offsets = new ArrayList<Integer>();
+        List<DefinedVariable> variables = new ArrayList<DefinedVariable>();
+        for (PsiElement child : definition.getChildren()) {
+            if (child instanceof KeywordStatement) {
+                KeywordStatement statement = (KeywordStatement) child;
+                int offset = child.getStartOffsetInParent();
+                // set test variable  ${x}  ${y}
+                DefinedVariable variable = statement.getGlobalVariable();
+                if (variable != null) {
+                    offsets.add(offset);
+                    variables.add(variable);
+                }
+                KeywordDefinition invoked = RobotGlobalVariables.getInvokedDefinition(statement);
+                if (invoked != null) {
+                    for (DefinedVariable set : RobotGlobalVariables.getSetVariables(invoked).getVariables()) {
+                        offsets.add(offset);
+                        variables.add(set);
+                    }
+                }
+            }
+        }
+        debug.complete();
+        return new RobotVariableScope(offsets, variables);
+    }
+
+    /**
+     * @param text   the variable as it is used.
+     * @param offset the offset of the statement using it, relative to the start of the body.
+     * @return the index of the latest definition before the statement; -1 if there is none.
+     */
+    public int find(@NotNull String text, int offset) {
+        List<String> keys = RobotVariableMatcher.getKeys(text);
+        if (keys == null) {
+            return findByPattern(text, offset);
+        }
+        int result = latest(this.keyed.get(keys.get(0)), offset, null);
+        for (int i = 1; i < keys.size(); i++) {
+            // extended syntax; only a better match if it is defined later
+            int candidate = latest(this.keyed.get(keys.get(i)), offset, text);
+            if (isLater(candidate, result)) {
+                result = candidate;
+            }
+        }
+        int candidate = latest(this.unkeyed, offset, text);
+        return isLater(candidate, result) ? candidate : result;
+    }
+
+    @NotNull
+    public DefinedVariable getVariable(int index) {
+        return this.variables[index];
+    }
+
+    public int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    private int findByPattern(@NotNull String text, int offset) {
+        int result = -1;
+        for (int i = 0; i < this.variables.length && this.offsets[i] < offset; i++) {
+            if (isLater(i, result) && this.variables[i].matches(text)) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param indexes the definitions to look at in ascending order.
+     * @param offset  the offset of the statement.
+     * @param text    the usage the definition has to match; null if it is known to.
+     * @return the latest definition before the offset; the first one of a statement defining several.
+     */
+    private int latest(@Nullable int[] indexes, int offset, @Nullable String text) {
+        if (indexes == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = indexes.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.offsets[indexes[middle]] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int i = high;
+        while (i >= 0) {
+            // definitions of the same statement are tried in the order they were added
+            int start = i;
+            while (start > 0 && this.offsets[indexes[start - 1]] == this.offsets[indexes[i]]) {
+                start--;
+            }
+            for (int j = start; j <= i; j++) {
+                if (text == null || this.variables[indexes[j]].matches(text)) {
+                    return indexes[j];
+                }
+            }
+            i = start - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * A later statement wins; within a statement the definition added first does.
+     */
+    private boolean isLater(int candidate, int current) {
+        if (candidate < 0) {
+            return false;
+        } else if (current < 0) {
+            return true;
+        }
+        int difference = this.offsets[candidate] - this.offsets[current];
+        return difference > 0 || difference == 0 && candidate < current;
+    }
+
+    private static boolean isLoopStart(@NotNull PsiElement element) {
+        PsiElement first = PsiTreeUtil.getDeepestFirst(element);
+        String text = PatternUtil.normalizeKeyword(first.getText().trim());
+        return FOR.equals(text) || OLD_FOR.equals(text);
+    }
+
+    /**
+     * Adds the variables in 'FOR  ${x}  IN  ...' up until the IN.
+     */
+    private static void addLoopVariables(@NotNull PsiElement statement, int offset, @NotNull List<Integer> offsets,
+                                            @NotNull List<DefinedVariable> variables) {
+        for (PsiElement element : PsiTreeUtil.findChildrenOfAnyType(statement, Argument.class, Variable.class)) {
+            String text = element.getText().trim();
+            if (PatternUtil.normalizeKeyword(text).startsWith(IN) && !isVariable(text)) {
+                return;
+            }
+            if (element instanceof Argument && isVariable(text)) {
+                offsets.add(offset);
+                variables.add(new VariableDto(element, text, null));
+            }
+        }
+    }
+
+    private static boolean isVariable(@NotNull String text) {
+        return text.length() > 3 && SIGILS.indexOf(text.charAt(0)) >= 0 && text.charAt(1) == '{' && text.endsWith("}");
+    }
+
+    @NotNull
+    private static int[] toArray(@NotNull List<Integer> values) {
+        int[] results = new int[values.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = values.get(i);
+        }
+        return results;
+    }
+}
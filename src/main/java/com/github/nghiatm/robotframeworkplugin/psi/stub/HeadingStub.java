@@ -0,0 +1,22 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubBase;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NotNull;
+
+public class HeadingStub extends StubBase<Heading> {
+
+    private final String text;
+
+    public HeadingStub(StubElement parent, IStubElementType elementType, @NotNull String text) {
+        super(parent, elementType);
+        this.text = text;
+    }
+
+    @NotNull
+    public String getText() {
+        return this.text;
+    }
+}
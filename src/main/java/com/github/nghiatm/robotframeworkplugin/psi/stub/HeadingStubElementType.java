@@ -0,0 +1,83 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLexer;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotParser;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.element.Heading;
+import com.github.nghiatm.robotframeworkplugin.psi.element.HeadingImpl;
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubInputStream;
+import com.intellij.psi.stubs.StubOutputStream;
+import com.intellij.psi.tree.ICustomParsingType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IReparseableElementTypeBase;
+import com.intellij.util.CharTable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Headings are reparsed on their own so an edit in one table leaves the other tables of the file untouched.
+ */
+public class HeadingStubElementType extends RobotStubElementType<HeadingStub, Heading>
+        implements ICustomParsingType, IReparseableElementTypeBase {
+
+    public HeadingStubElementType(@NotNull String debugName) {
+        super(debugName);
+    }
+
+    @NotNull
+    @Override
+    public ASTNode parse(@NotNull CharSequence text, @NotNull CharTable table) {
+        return RobotParser.parseHeading(this, text);
+    }
+
+    /**
+     * The new text can be reparsed on its own as long as it is still exactly one heading.
+     */
+    @Override
+    public boolean isParsable(@NotNull CharSequence buffer, @NotNull Language fileLanguage, @NotNull Project project) {
+        Lexer lexer = new RobotLexer(RobotKeywordProvider.getInstance());
+        lexer.start(buffer);
+        if (lexer.getTokenStart() != 0 || lexer.getTokenType() != RobotTokenTypes.HEADING) {
+            return false;
+        }
+        lexer.advance();
+        IElementType type;
+        while ((type = lexer.getTokenType()) != null) {
+            if (type == RobotTokenTypes.HEADING) {
+                return false;
+            }
+            lexer.advance();
+        }
+        return true;
+    }
+
+    @Override
+    public Heading createPsi(@NotNull HeadingStub stub) {
+        return new HeadingImpl(stub, this);
+    }
+
+    @NotNull
+    @Override
+    public HeadingStub createStub(@NotNull Heading psi, StubElement parentStub) {
+        return new HeadingStub(parentStub, this, psi.getPresentableText());
+    }
+
+    @Override
+    public void serialize(@NotNull HeadingStub stub, @NotNull StubOutputStream dataStream) throws IOException {
+        dataStream.writeName(stub.getText());
+    }
+
+    @NotNull
+    @Override
+    public HeadingStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
+        String text = dataStream.readNameString();
+        return new HeadingStub(parentStub, this, text == null ? "" : text);
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.Import;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubBase;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class ImportStub extends StubBase<Import> {
+
+    private final String type;
+    private final String path;
+    private final String namespace;
+
+    public ImportStub(StubElement parent, IStubElementType elementType, @NotNull String type,
+                      @Nullable String path, @Nullable String namespace) {
+        super(parent, elementType);
+        this.type = type;
+        this.path = path;
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return the import setting; ie Library, Resource or Variables.
+     */
+    @NotNull
+    public String getType() {
+        return this.type;
+    }
+
+    @Nullable
+    public String getPath() {
+        return this.path;
+    }
+
+    @Nullable
+    public String getNamespace() {
+        return this.namespace;
+    }
+}
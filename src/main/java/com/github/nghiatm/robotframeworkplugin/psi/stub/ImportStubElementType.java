@@ -0,0 +1,44 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.Import;
+import com.github.nghiatm.robotframeworkplugin.psi.element.ImportImpl;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubInputStream;
+import com.intellij.psi.stubs.StubOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class ImportStubElementType extends RobotStubElementType<ImportStub, Import> {
+
+    public ImportStubElementType(@NotNull String debugName) {
+        super(debugName);
+    }
+
+    @Override
+    public Import createPsi(@NotNull ImportStub stub) {
+        return new ImportImpl(stub, this);
+    }
+
+    @NotNull
+    @Override
+    public ImportStub createStub(@NotNull Import psi, StubElement parentStub) {
+        return new ImportStub(parentStub, this, psi.getPresentableText(), psi.getImportedPath(), psi.getNamespace());
+    }
+
+    @Override
+    public void serialize(@NotNull ImportStub stub, @NotNull StubOutputStream dataStream) throws IOException {
+        dataStream.writeName(stub.getType());
+        dataStream.writeName(stub.getPath());
+        dataStream.writeName(stub.getNamespace());
+    }
+
+    @NotNull
+    @Override
+    public ImportStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
+        String type = dataStream.readNameString();
+        String path = dataStream.readNameString();
+        String namespace = dataStream.readNameString();
+        return new ImportStub(parentStub, this, type == null ? "" : type, path, namespace);
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubBase;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NotNull;
+
+public class KeywordDefinitionStub extends StubBase<KeywordDefinition> {
+
+    private final String name;
+    private final boolean arguments;
+
+    public KeywordDefinitionStub(StubElement parent, IStubElementType elementType, @NotNull String name,
+                                 boolean arguments) {
+        super(parent, elementType);
+        this.name = name;
+        this.arguments = arguments;
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    public boolean hasArguments() {
+        return this.arguments;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotKeywordProvider;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLexer;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotParser;
+import com.github.nghiatm.robotframeworkplugin.psi.RobotTokenTypes;
+import com.github.nghiatm.robotframeworkplugin.psi.element.DefinedKeyword;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.element.KeywordDefinitionImpl;
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.Language;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubInputStream;
+import com.intellij.psi.stubs.StubOutputStream;
+import com.intellij.psi.tree.ICustomParsingType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.IReparseableElementTypeBase;
+import com.intellij.util.CharTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Test case and keyword definitions are reparsed on their own so an edit inside one of them leaves
+ * the other definitions of the heading untouched.
+ */
+public class KeywordDefinitionStubElementType extends RobotStubElementType<KeywordDefinitionStub, KeywordDefinition>
+        implements ICustomParsingType, IReparseableElementTypeBase {
+
+    public KeywordDefinitionStubElementType(@NotNull String debugName) {
+        super(debugName);
+    }
+
+    @NotNull
+    @Override
+    public ASTNode parse(@NotNull CharSequence text, @NotNull CharTable table) {
+        return RobotParser.parseKeywordDefinition(this, text);
+    }
+
+    /**
+     * The new text can be reparsed on its own as long as it is still exactly one definition.
+     */
+    @Override
+    public boolean isParsable(@NotNull CharSequence buffer, @NotNull Language fileLanguage, @NotNull Project project) {
+        Lexer lexer = RobotLexer.createDefinitionLexer(RobotKeywordProvider.getInstance());
+        lexer.start(buffer);
+        IElementType type = lexer.getTokenType();
+        if (lexer.getTokenStart() != 0 || !isNamePart(type)) {
+            return false;
+        }
+        lexer.advance();
+        while ((type = lexer.getTokenType()) != null) {
+            if (type == RobotTokenTypes.HEADING) {
+                return false;
+            }
+            int start = lexer.getTokenStart();
+            if (isNamePart(type) && buffer.charAt(start - 1) == '\n') {
+                // another definition starts here
+                return false;
+            }
+            lexer.advance();
+        }
+        return true;
+    }
+
+    private static boolean isNamePart(@Nullable IElementType type) {
+        return type == RobotTokenTypes.KEYWORD_DEFINITION || type == RobotTokenTypes.VARIABLE_DEFINITION;
+    }
+
+    @Override
+    public KeywordDefinition createPsi(@NotNull KeywordDefinitionStub stub) {
+        return new KeywordDefinitionImpl(stub, this);
+    }
+
+    @NotNull
+    @Override
+    public KeywordDefinitionStub createStub(@NotNull KeywordDefinition psi, StubElement parentStub) {
+        boolean arguments = psi instanceof DefinedKeyword && ((DefinedKeyword) psi).hasArguments();
+        return new KeywordDefinitionStub(parentStub, this, psi.getPresentableText(), arguments);
+    }
+
+    @Override
+    public void serialize(@NotNull KeywordDefinitionStub stub, @NotNull StubOutputStream dataStream) throws IOException {
+        dataStream.writeName(stub.getName());
+        dataStream.writeBoolean(stub.hasArguments());
+    }
+
+    @NotNull
+    @Override
+    public KeywordDefinitionStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
+        String name = dataStream.readNameString();
+        boolean arguments = dataStream.readBoolean();
+        return new KeywordDefinitionStub(parentStub, this, name == null ? "" : name, arguments);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLanguage;
+import com.github.nghiatm.robotframeworkplugin.psi.element.RobotFile;
+import com.intellij.psi.stubs.PsiFileStub;
+import com.intellij.psi.tree.IStubFileElementType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The file element type of robot files; changes to the stubs need to bump the version.
+ */
+public class RobotFileElementType extends IStubFileElementType<PsiFileStub<RobotFile>> {
+
+    private static final String EXTERNAL_ID = "robot.FILE";
+    private static final int STUB_VERSION = 1;
+
+    public RobotFileElementType() {
+        super(EXTERNAL_ID, RobotLanguage.INSTANCE);
+    }
+
+    @Override
+    public int getStubVersion() {
+        return STUB_VERSION;
+    }
+
+    @NotNull
+    @Override
+    public String getExternalId() {
+        return EXTERNAL_ID;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.RobotLanguage;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.IndexSink;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Base for the robot elements that are kept in the stub tree.
+ */
+public abstract class RobotStubElementType<S extends StubElement<?>, P extends PsiElement> extends IStubElementType<S, P> {
+
+    private static final String PREFIX = "robot.";
+
+    public RobotStubElementType(@NotNull @NonNls String debugName) {
+        super(debugName, RobotLanguage.INSTANCE);
+    }
+
+    @NotNull
+    @Override
+    public String getExternalId() {
+        return PREFIX + toString();
+    }
+
+    @Override
+    public void indexStub(@NotNull S stub, @NotNull IndexSink sink) {
+        // nothing is indexed from the stubs yet
+    }
+}
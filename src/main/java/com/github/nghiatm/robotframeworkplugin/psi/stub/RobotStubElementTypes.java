@@ -0,0 +1,13 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+/**
+ * The composite element types that are kept in the stub tree so that other files can read
+ * headings, keyword definitions, variables and imports without parsing.
+ */
+public interface RobotStubElementTypes {
+
+    HeadingStubElementType HEADING = new HeadingStubElementType("HEADING");
+    ImportStubElementType IMPORT = new ImportStubElementType("IMPORT");
+    KeywordDefinitionStubElementType KEYWORD_DEFINITION = new KeywordDefinitionStubElementType("KEYWORD_DEFINITION");
+    VariableDefinitionStubElementType VARIABLE_DEFINITION = new VariableDefinitionStubElementType("VARIABLE_DEFINITION");
+}
@@ -0,0 +1,22 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinition;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubBase;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NotNull;
+
+public class VariableDefinitionStub extends StubBase<VariableDefinition> {
+
+    private final String name;
+
+    public VariableDefinitionStub(StubElement parent, IStubElementType elementType, @NotNull String name) {
+        super(parent, elementType);
+        this.name = name;
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+}
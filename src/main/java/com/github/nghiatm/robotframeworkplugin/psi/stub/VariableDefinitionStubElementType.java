@@ -0,0 +1,51 @@
+package com.github.nghiatm.robotframeworkplugin.psi.stub;
+
+import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinition;
+import com.github.nghiatm.robotframeworkplugin.psi.element.VariableDefinitionImpl;
+import com.intellij.lang.ASTNode;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubInputStream;
+import com.intellij.psi.stubs.StubOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class VariableDefinitionStubElementType extends RobotStubElementType<VariableDefinitionStub, VariableDefinition> {
+
+    public VariableDefinitionStubElementType(@NotNull String debugName) {
+        super(debugName);
+    }
+
+    /**
+     * Only the variables of a '*** Variables ***' table are visible to other files; assignments and arguments
+     * inside keywords are left out of the stub tree.
+     */
+    @Override
+    public boolean shouldCreateStub(ASTNode node) {
+        ASTNode parent = node.getTreeParent();
+        return parent != null && parent.getElementType() == RobotStubElementTypes.HEADING;
+    }
+
+    @Override
+    public VariableDefinition createPsi(@NotNull VariableDefinitionStub stub) {
+        return new VariableDefinitionImpl(stub, this);
+    }
+
+    @NotNull
+    @Override
+    public VariableDefinitionStub createStub(@NotNull VariableDefinition psi, StubElement parentStub) {
+        return new VariableDefinitionStub(parentStub, this, psi.getPresentableText());
+    }
+
+    @Override
+    public void serialize(@NotNull VariableDefinitionStub stub, @NotNull StubOutputStream dataStream) throws IOException {
+        dataStream.writeName(stub.getName());
+    }
+
+    @NotNull
+    @Override
+    public VariableDefinitionStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
+        String name = dataStream.readNameString();
+        return new VariableDefinitionStub(parentStub, this, name == null ? "" : name);
+    }
+}
@@ -3,8 +3,11 @@ package com.github.nghiatm.robotframeworkplugin.psi.util;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -29,6 +32,7 @@ public class PatternUtil {
     private static final String VARIABLE_START_PATTERN = "[\\$\\@\\%\\&]\\{";
     private static final String VARIABLE_END_PATTERN = "((\\..*?)*?(\\[.*?\\])*?)*?\\}(\\[\\d+\\])?";
     private static final String VARIABLE_SEPARATOR = "[ _]*?";
+    private static final Pattern EMBEDDED_ARGUMENT = Pattern.compile("\\$\\{.*?\\}");
 
     static {
         VARIABLE_SETTERS = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
@@ -79,10 +83,97 @@ public class PatternUtil {
         return pattern.toString();
     }
 
+    /**
+     * Builds the key a variable definition is looked up by: without its sigil, braces and any trailing equals,
+     * lower cased and without spaces or underscores.
+     *
+     * @param definition the variable as it is defined; ie '${my var} ='.
+     * @return the key or null if the definition is nested or otherwise can only be matched by its pattern.
+     */
+    @Nullable
+    public static String getVariableKey(@NotNull String definition) {
+        String text = definition.trim();
+        if (text.endsWith(EQUAL)) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+        if (text.startsWith(SCALAR_START) || text.startsWith(LIST_START) ||
+                text.startsWith(DICTIONARY_START) || text.startsWith(ENVIRONMENT_START)) {
+            text = text.substring(2);
+        }
+        if (text.endsWith(VARIABLE_CLOSE)) {
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.isEmpty() || text.contains("{") || text.contains(VARIABLE_CLOSE) || text.contains("[")) {
+            return null;
+        }
+        return normalizeKeyword(text);
+    }
+
     public static boolean isVariableSettingKeyword(String keyword) {
         return VARIABLE_SETTERS.contains(functionToKeyword(keyword));
     }
 
+    /**
+     * Normalizes a keyword name the way robot matches them: case, spaces and underscores are ignored.
+     *
+     * @param keyword the keyword name or invocation text.
+     * @return the lower cased name without any spaces or underscores.
+     */
+    @NotNull
+    public static String normalizeKeyword(@NotNull String keyword) {
+        StringBuilder builder = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c != ' ' && c != '_') {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Splits the name of a keyword with embedded arguments into the literal text around the arguments.
+     *
+     * @param keyword the keyword name; ie 'User ${name} logs in'.
+     * @return the normalized, non empty fragments in order; ie 'user' and 'logsin'.
+     */
+    @NotNull
+    public static List<String> getKeywordFragments(@NotNull String keyword) {
+        List<String> results = new ArrayList<String>();
+        int start = 0;
+        Matcher matcher = EMBEDDED_ARGUMENT.matcher(keyword);
+        while (matcher.find()) {
+            addFragment(results, keyword.substring(start, matcher.start()));
+            start = matcher.end();
+        }
+        addFragment(results, keyword.substring(start));
+        return results;
+    }
+
+    /**
+     * @param keyword   a normalized keyword name.
+     * @param fragments normalized fragments as returned by {@link #getKeywordFragments(String)}.
+     * @return true if the name contains every fragment, in order and without overlap.
+     */
+    public static boolean containsFragments(@NotNull String keyword, @NotNull List<String> fragments) {
+        int start = 0;
+        for (String fragment : fragments) {
+            int index = keyword.indexOf(fragment, start);
+            if (index < 0) {
+                return false;
+            }
+            start = index + fragment.length();
+        }
+        return true;
+    }
+
+    private static void addFragment(@NotNull List<String> results, @NotNull String fragment) {
+        String normalized = normalizeKeyword(fragment);
+        if (!normalized.isEmpty()) {
+            results.add(normalized);
+        }
+    }
+
     @Nullable
     public static String functionToKeyword(@Nullable String function) {
         return function == null ? null : function.replaceAll(UNDERSCORE, SPACE).trim();
@@ -1,38 +1,69 @@
 package com.github.nghiatm.robotframeworkplugin.psi.util;
 
 import com.intellij.notification.*;
-import com.github.nghiatm.robotframeworkplugin.ide.config.RobotOptionsProvider;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
+ * Times a unit of work and records it in {@link RobotMetrics}; does nothing unless debugging is enabled.
+ *
  * @author mrubino
  * @since 2014-06-26
  */
 public class PerformanceCollector {
 
     private static final String MILLISECONDS = "ms";
-    private static final long MINIMUM = 500;
+    private static final long MINIMUM = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final PerformanceCollector DISABLED = new PerformanceCollector(null, null, 0);
+
+    private static volatile boolean enabled;
 
     private final String context;
     private final PerformanceEntity entity;
     private final long start;
 
-    public PerformanceCollector(@NotNull PerformanceEntity entity, @NotNull String context) {
-        this.entity = entity;
-        this.context = context;
-        this.start = System.currentTimeMillis();
+    static {
         NotificationsConfiguration.getNotificationsConfiguration().register(
                 "intellibot.debug", NotificationDisplayType.NONE);
     }
 
+    private PerformanceCollector(PerformanceEntity entity, String context, long start) {
+        this.entity = entity;
+        this.context = context;
+        this.start = start;
+    }
+
+    /**
+     * @param entity  the element the work is done for.
+     * @param context the kind of work.
+     * @return the started collector; a shared no-op collector when debugging is disabled.
+     */
+    @NotNull
+    public static PerformanceCollector start(@NotNull PerformanceEntity entity, @NotNull String context) {
+        return enabled ? new PerformanceCollector(entity, context, System.nanoTime()) : DISABLED;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        PerformanceCollector.enabled = enabled;
+    }
+
     public void complete() {
-        if (RobotOptionsProvider.getInstance(this.entity.getProject()).isDebug()) {
-            long duration = System.currentTimeMillis() - this.start;
-            if (duration > MINIMUM) {
-                String message = String.format("[%s][%s][%s] %d%s",
-                        this.entity.getDebugFileName(), this.context, this.entity.getDebugText(), duration, MILLISECONDS);
-                Notifications.Bus.notify(new Notification("intellibot.debug", "Debug", message, NotificationType.INFORMATION));
-            }
+        if (this == DISABLED) {
+            return;
+        }
+        long duration = System.nanoTime() - this.start;
+        String fileName = this.entity.getDebugFileName();
+        RobotMetrics.record(this.context, fileName, duration);
+        if (duration > MINIMUM) {
+            String message = String.format("[%s][%s][%s] %d%s",
+                    fileName, this.context, this.entity.getDebugText(),
+                    TimeUnit.NANOSECONDS.toMillis(duration), MILLISECONDS);
+            Notifications.Bus.notify(new Notification("intellibot.debug", "Debug", message, NotificationType.INFORMATION));
         }
     }
 }
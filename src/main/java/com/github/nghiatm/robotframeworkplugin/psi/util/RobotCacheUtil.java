@@ -0,0 +1,65 @@
+package com.github.nghiatm.robotframeworkplugin.psi.util;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Values computed from a PSI element and kept until the element changes.
+ * <p>
+ * Elements tracking their own changes, as the {@link ModificationTracker} of a robot element counts the changes
+ * within its subtree, keep their values while other parts of the file are edited; for other elements any change
+ * to the file drops the value. Values built from other files name what else they depend on.
+ * <p>
+ * The values are held by {@link CachedValuesManager} rather than in fields of the element, so they can be read
+ * from any number of threads at once; a value computed concurrently is kept only once and every caller sees
+ * a fully built one.
+ */
+public class RobotCacheUtil {
+
+    private RobotCacheUtil() {
+    }
+
+    /**
+     * @param element      the element the value is computed from; its changes invalidate the value.
+     * @param key          the key to keep the value under.
+     * @param context      the kind of work, for the performance collector.
+     * @param supplier     computes the value.
+     * @param dependencies what else invalidates the value, for values built from other files as well; as for
+     *                     {@link CachedValueProvider.Result}.
+     * @return the cached or newly computed value; null values are cached as well.
+     */
+    public static <T, E extends PsiElement & PerformanceEntity> T getCachedValue(@NotNull E element,
+                                                                                 @NotNull Key<CachedValue<T>> key,
+                                                                                 @NotNull String context,
+                                                                                 @NotNull Supplier<T> supplier,
+                                                                                 @NotNull Object... dependencies) {
+        return CachedValuesManager.getCachedValue(element, key, () -> {
+            PerformanceCollector debug = PerformanceCollector.start(element, context);
+            T value = supplier.get();
+            debug.complete();
+            return CachedValueProvider.Result.create(value, ArrayUtil.append(dependencies, getDependency(element)));
+        });
+    }
+
+    /**
+     * @param element the element a value is computed from.
+     * @return the tracker of the changes within the element if it has one, otherwise the element itself.
+     */
+    @NotNull
+    public static Object getDependency(@NotNull PsiElement element) {
+        if (element instanceof ModificationTracker) {
+            // a PSI element as dependency would stand for the stamp of its file
+            ModificationTracker tracker = (ModificationTracker) element;
+            return (ModificationTracker) tracker::getModificationCount;
+        }
+        return element;
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.nghiatm.robotframeworkplugin.psi.util;
+
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the {@link PerformanceCollector} contexts, both overall and per file.
+ */
+public class RobotMetrics {
+
+    private static final ConcurrentMap<String, LatencyHistogram> BY_CONTEXT = new ConcurrentHashMap<String, LatencyHistogram>();
+    private static final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> BY_FILE =
+            new ConcurrentHashMap<String, ConcurrentMap<String, LatencyHistogram>>();
+
+    private RobotMetrics() {
+    }
+
+    static void record(@NotNull String context, @NotNull String file, long nanos) {
+        BY_CONTEXT.computeIfAbsent(context, key -> new LatencyHistogram()).record(nanos);
+        BY_FILE.computeIfAbsent(context, key -> new ConcurrentHashMap<String, LatencyHistogram>())
+                .computeIfAbsent(file, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void reset() {
+        BY_CONTEXT.clear();
+        BY_FILE.clear();
+    }
+
+    /**
+     * @return a row per context followed by a row per file within that context; sorted by context name.
+     */
+    @NotNull
+    public static List<Entry> getEntries() {
+        List<Entry> results = new ArrayList<Entry>();
+        for (Map.Entry<String, LatencyHistogram> context : new TreeMap<String, LatencyHistogram>(BY_CONTEXT).entrySet()) {
+            results.add(new Entry(context.getKey(), null, context.getValue()));
+            Map<String, LatencyHistogram> files = BY_FILE.get(context.getKey());
+            if (files != null) {
+                for (Map.Entry<String, LatencyHistogram> file : new TreeMap<String, LatencyHistogram>(files).entrySet()) {
+                    results.add(new Entry(context.getKey(), file.getKey(), file.getValue()));
+                }
+            }
+        }
+        return results;
+    }
+
+    @NotNull
+    public static String toJson() {
+        StringWriter result = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(result)) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            for (Entry entry : getEntries()) {
+                writer.beginObject();
+                writer.name("context").value(entry.getContext());
+                if (entry.getFile() != null) {
+                    writer.name("file").value(entry.getFile());
+                }
+                writer.name("count").value(entry.getCount());
+                writer.name("totalMs").value(entry.getTotalMillis());
+                writer.name("p50Ms").value(entry.getPercentileMillis(50));
+                writer.name("p95Ms").value(entry.getPercentileMillis(95));
+                writer.name("p99Ms").value(entry.getPercentileMillis(99));
+                writer.name("maxMs").value(entry.getMaxMillis());
+                writer.endObject();
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            // a string writer does not throw
+            throw new IllegalStateException(e);
+        }
+        return result.toString();
+    }
+
+    public static class Entry {
+
+        private final String context;
+        private final String file;
+        private final LatencyHistogram histogram;
+
+        private Entry(@NotNull String context, @Nullable String file, @NotNull LatencyHistogram histogram) {
+            this.context = context;
+            this.file = file;
+            this.histogram = histogram;
+        }
+
+        @NotNull
+        public String getContext() {
+            return this.context;
+        }
+
+        /**
+         * @return the file name or null for the totals of the context.
+         */
+        @Nullable
+        public String getFile() {
+            return this.file;
+        }
+
+        public long getCount() {
+            return this.histogram.getCount();
+        }
+
+        public double getTotalMillis() {
+            return toMillis(this.histogram.getTotal());
+        }
+
+        public double getPercentileMillis(double percentile) {
+            return toMillis(this.histogram.getPercentile(percentile));
+        }
+
+        public double getMaxMillis() {
+            return toMillis(this.histogram.getMax());
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}